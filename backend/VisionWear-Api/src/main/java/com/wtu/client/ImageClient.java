@@ -1,9 +1,11 @@
 package com.wtu.client;
 
 import com.wtu.result.Result;
+import com.wtu.vo.GalleryPageVO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
@@ -21,7 +23,21 @@ public interface ImageClient {
      * 获取用户的所有图片URL
      * @param userId 用户ID（通过请求头传递）
      * @return 图片URL列表
+     * @deprecated 结果随历史无限增长，改用 {@link #getGallery(Long, String, Integer)}
      */
+    @Deprecated
     @GetMapping("/api/image")
     Result<List<String>> getAllImageUrls(@RequestHeader(value = "userId") Long userId);
+
+    /**
+     * 游标分页获取用户图库
+     * @param userId 用户ID（通过请求头传递）
+     * @param cursor 上一页返回的游标，首页不传
+     * @param size 每页数量，不传使用默认值
+     * @return 本页图片及下一页游标
+     */
+    @GetMapping("/api/image/gallery")
+    Result<GalleryPageVO> getGallery(@RequestHeader(value = "userId") Long userId,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) Integer size);
 }
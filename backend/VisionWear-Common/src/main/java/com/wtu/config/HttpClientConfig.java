@@ -1,20 +1,39 @@
 package com.wtu.config;
 
+import com.wtu.properties.HttpClientProperties;
+import com.wtu.utils.UpstreamHttpClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class HttpClientConfig {
-    
+
     @Bean
-    public OkHttpClient okHttpClient() {
-        return new OkHttpClient.Builder()
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(10, TimeUnit.SECONDS)
+    public OkHttpClient okHttpClient(HttpClientProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HttpClientProperties.Timeouts defaults = properties.getDefaults();
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(defaults.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(defaults.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(defaults.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .callTimeout(defaults.getCallTimeout(), TimeUnit.MILLISECONDS)
                 .retryOnConnectionFailure(true) // 连接失败时重试
-                .build();
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)) // 上游支持时走HTTP/2多路复用
+                .connectionPool(new ConnectionPool(properties.getMaxIdleConnections(),
+                        properties.getKeepAlive(), TimeUnit.MILLISECONDS)); // 复用长连接
+        meterRegistry.ifAvailable(registry -> builder.addInterceptor(new UpstreamHttpClients.MetricsInterceptor(registry, properties)));
+        return builder.build();
+    }
+
+    @Bean
+    public UpstreamHttpClients upstreamHttpClients(OkHttpClient okHttpClient, HttpClientProperties properties) {
+        return new UpstreamHttpClients(okHttpClient, properties);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.wtu.config;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
 import com.wtu.properties.AliOssProperties;
 import com.wtu.utils.AliOssUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,16 +17,29 @@ import org.springframework.context.annotation.Configuration;
 @Slf4j
 public class OssMvcConfiguration {
 
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean
-    public AliOssUtil aliOssUtil(AliOssProperties aliOssProperties){
-        log.info("开始创建阿里云文件上传工具类对象, {}",
-                aliOssProperties);
+    public AliOssUtil aliOssUtil(AliOssProperties aliOssProperties,
+                                 ObjectProvider<MeterRegistry> meterRegistry){
+        log.info("开始创建阿里云文件上传工具类对象, endpoint: {}, bucket: {}",
+                aliOssProperties.getEndpoint(), aliOssProperties.getBucketName());
 
-        return new AliOssUtil(aliOssProperties.getEndpoint(),
+        // 连接池配置，空闲连接由SDK的IdleConnectionReaper按idleConnectionTime回收
+        ClientBuilderConfiguration configuration = new ClientBuilderConfiguration();
+        configuration.setMaxConnections(aliOssProperties.getMaxConnections());
+        configuration.setConnectionTimeout(aliOssProperties.getConnectionTimeout());
+        configuration.setSocketTimeout(aliOssProperties.getSocketTimeout());
+        configuration.setConnectionRequestTimeout(aliOssProperties.getConnectionRequestTimeout());
+        configuration.setIdleConnectionTime(aliOssProperties.getIdleConnectionTime());
+
+        AliOssUtil aliOssUtil = new AliOssUtil(aliOssProperties.getEndpoint(),
                 aliOssProperties.getAccessKeyId(),
                 aliOssProperties.getAccessKeySecret(),
-                aliOssProperties.getBucketName());
-
+                aliOssProperties.getBucketName(),
+                configuration);
+        aliOssUtil.setMultipartThreshold(aliOssProperties.getMultipartThreshold());
+        aliOssUtil.setPartSize(aliOssProperties.getPartSize());
+        meterRegistry.ifAvailable(aliOssUtil::setMeterRegistry);
+        return aliOssUtil;
     }
 }
@@ -1,5 +1,6 @@
 package com.wtu.config;
 
+import com.wtu.utils.UpstreamHttpClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -14,9 +15,12 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * 底层使用共享的OkHttp连接池，超时按目标域名配置
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(UpstreamHttpClients upstreamHttpClients) {
+        return new RestTemplate(upstreamHttpClients.requestFactory());
     }
 
 }
@@ -24,4 +24,26 @@ public class AliOssProperties {
     // 阿里云OSS存储bucket名称
     private String bucketName;
 
+    // 连接池最大连接数
+    @Builder.Default
+    private int maxConnections = 128;
+    // 建立连接超时（毫秒）
+    @Builder.Default
+    private int connectionTimeout = 5000;
+    // Socket读写超时（毫秒）
+    @Builder.Default
+    private int socketTimeout = 30000;
+    // 从连接池获取连接的超时（毫秒）
+    @Builder.Default
+    private int connectionRequestTimeout = 5000;
+    // 空闲连接超过该时长将被回收（毫秒）
+    @Builder.Default
+    private long idleConnectionTime = 60000;
+    // 已知长度超过该值时改用分片上传（字节）
+    @Builder.Default
+    private long multipartThreshold = 16L * 1024 * 1024;
+    // 分片大小（字节）
+    @Builder.Default
+    private int partSize = 5 * 1024 * 1024;
+
 }
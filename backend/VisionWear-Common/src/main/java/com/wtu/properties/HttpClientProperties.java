@@ -0,0 +1,49 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 出站HTTP客户端配置
+ * 所有上游共享一个连接池，超时可按域名单独覆盖
+ */
+@Component
+@ConfigurationProperties(prefix = "wtu.http")
+@Data
+public class HttpClientProperties {
+
+    // 连接池最大空闲连接数
+    private int maxIdleConnections = 32;
+    // 空闲连接保活时长（毫秒）
+    private long keepAlive = 300000;
+    // 默认超时
+    private Timeouts defaults = new Timeouts(10000L, 30000L, 10000L, 0L);
+    // 按域名覆盖超时，key为完整域名或以"."开头的后缀（如.aliyuncs.com），yml中需写成"[api.ttapi.io]"
+    private Map<String, Timeouts> hosts = new HashMap<>();
+
+    @Data
+    public static class Timeouts {
+        // 建立连接超时（毫秒），为空时沿用默认值
+        private Long connectTimeout;
+        // 读超时（毫秒）
+        private Long readTimeout;
+        // 写超时（毫秒）
+        private Long writeTimeout;
+        // 整个调用的总超时（毫秒），0表示不限制
+        private Long callTimeout;
+
+        public Timeouts() {
+        }
+
+        public Timeouts(Long connectTimeout, Long readTimeout, Long writeTimeout, Long callTimeout) {
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.writeTimeout = writeTimeout;
+            this.callTimeout = callTimeout;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图片下载转Base64配置
+ */
+@Component
+@ConfigurationProperties(prefix = "wtu.image-fetch")
+@Data
+public class ImageFetchProperties {
+
+    // 并行下载线程数
+    private int threads = 8;
+    // 下载任务排队上限，排满后由调用线程执行
+    private int queueCapacity = 64;
+    // 已编码图片缓存的总大小上限（字节）
+    private long cacheMaxBytes = 64L * 1024 * 1024;
+}
@@ -1,34 +1,113 @@
 package com.wtu.utils;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
 import com.aliyun.oss.ClientException;
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSErrorCode;
 import com.aliyun.oss.OSSException;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * 阿里云OSS工具类
+ * 内部持有一个长生命周期的OSS客户端（线程安全），所有上传/删除共享同一个连接池，
+ * 随Spring容器销毁时关闭
  */
-@Data
-@AllArgsConstructor
+@Getter
 @Slf4j
 public class AliOssUtil {
 
     // 阿里云OSS端点
-    private String endpoint;
+    private final String endpoint;
 
     // 阿里云OSS访问密钥ID
-    private String accessKeyId;
+    private final String accessKeyId;
 
     // 阿里云OSS访问密钥
-    private String accessKeySecret;
+    private final String accessKeySecret;
 
     // 阿里云OSS存储bucket名称
-    private String bucketName;
+    private final String bucketName;
+
+    // 客户端连接池配置
+    private final ClientBuilderConfiguration configuration;
+
+    // 共享的OSS客户端，首次使用时创建，未配置OSS的服务不会建立连接池
+    private volatile OSS ossClient;
+
+    // 指标注册表，可为空
+    private MeterRegistry meterRegistry;
+
+    // 已知长度超过该值时改用分片上传（字节）
+    private long multipartThreshold = 16L * 1024 * 1024;
+
+    // 分片大小（字节），同时也是分片上传时唯一的内存缓冲
+    private int partSize = 5 * 1024 * 1024;
+
+    public AliOssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName) {
+        this(endpoint, accessKeyId, accessKeySecret, bucketName, new ClientBuilderConfiguration());
+    }
+
+    public AliOssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName,
+                      ClientBuilderConfiguration configuration) {
+        this.endpoint = endpoint;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+        this.bucketName = bucketName;
+        this.configuration = configuration;
+    }
+
+    /**
+     * 获取共享的OSS客户端
+     */
+    public OSS getOssClient() {
+        OSS client = ossClient;
+        if (client == null) {
+            synchronized (this) {
+                client = ossClient;
+                if (client == null) {
+                    client = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, configuration);
+                    ossClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 设置指标注册表，设置后记录上传/删除耗时
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setMultipartThreshold(long multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public void setPartSize(int partSize) {
+        this.partSize = partSize;
+    }
 
     /**
      * 文件上传
@@ -38,25 +117,204 @@ public class AliOssUtil {
      * @return 访问URL
      */
     public String upload(byte[] bytes, String objectName) {
-        // 创建OSSClient实例
-        OSS ossClient = new OSSClientBuilder()
-                .build(endpoint, accessKeyId, accessKeySecret);
+        return upload(new ByteArrayInputStream(bytes), objectName);
+    }
 
-        try {
-            // 创建PutObject请求
-            ossClient.putObject(bucketName,
-                    objectName,
-                    new ByteArrayInputStream(bytes));
-        } catch (OSSException oe) {
-            throw new RuntimeException("OSS上传文件失败: " + oe.getErrorMessage());
-        } catch (ClientException ce) {
-            throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
-        } finally {
-            // 关闭OSSClient
-            if (ossClient != null) {
-                ossClient.shutdown();
+    /**
+     * 以流的方式上传文件
+     *
+     * @param inputStream 文件输入流，由调用方负责关闭
+     * @param objectName 对象名称
+     * @return 访问URL
+     */
+    public String upload(InputStream inputStream, String objectName) {
+        record("upload", () -> {
+            try {
+                return getOssClient().putObject(bucketName, objectName, inputStream);
+            } catch (OSSException oe) {
+                throw new RuntimeException("OSS上传文件失败: " + oe.getErrorMessage());
+            } catch (ClientException ce) {
+                throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
             }
+        });
+
+        return getAccessUrl(objectName);
+    }
+
+    /**
+     * 以流的方式转存，不在内存中缓冲整个对象
+     * 长度未知时使用chunked编码直接上传，超过分片阈值时按partSize分片上传
+     *
+     * @param inputStream 数据流，由调用方负责关闭
+     * @param contentLength 数据长度，未知时传-1
+     * @param contentType 内容类型，可为空
+     * @param objectName 对象名称
+     * @return 访问URL
+     */
+    public String upload(InputStream inputStream, long contentLength, String contentType, String objectName) {
+        if (contentLength > multipartThreshold) {
+            return multipartUpload(inputStream, contentType, objectName);
+        }
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentLength >= 0) {
+            metadata.setContentLength(contentLength);
+        }
+        if (contentType != null) {
+            metadata.setContentType(contentType);
         }
+        record("upload", () -> {
+            try {
+                return getOssClient().putObject(bucketName, objectName, inputStream, metadata);
+            } catch (OSSException oe) {
+                throw new RuntimeException("OSS上传文件失败: " + oe.getErrorMessage());
+            } catch (ClientException ce) {
+                throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
+            }
+        });
+
+        return getAccessUrl(objectName);
+    }
+
+    /**
+     * 分片上传，复用一个partSize大小的缓冲区，失败时中止分片任务
+     */
+    private String multipartUpload(InputStream inputStream, String contentType, String objectName) {
+        record("multipart", () -> {
+            OSS client = getOssClient();
+            ObjectMetadata metadata = new ObjectMetadata();
+            if (contentType != null) {
+                metadata.setContentType(contentType);
+            }
+            String uploadId = client.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, objectName, metadata)).getUploadId();
+
+            try {
+                List<PartETag> partETags = new ArrayList<>();
+                byte[] buffer = new byte[partSize];
+                int partNumber = 1;
+                int read;
+                while ((read = readFully(inputStream, buffer)) > 0) {
+                    UploadPartRequest partRequest = new UploadPartRequest();
+                    partRequest.setBucketName(bucketName);
+                    partRequest.setKey(objectName);
+                    partRequest.setUploadId(uploadId);
+                    partRequest.setInputStream(new ByteArrayInputStream(buffer, 0, read));
+                    partRequest.setPartSize(read);
+                    partRequest.setPartNumber(partNumber++);
+                    partETags.add(client.uploadPart(partRequest).getPartETag());
+                }
+                return client.completeMultipartUpload(
+                        new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+            } catch (IOException | RuntimeException e) {
+                client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+                throw new RuntimeException("OSS分片上传失败: " + e.getMessage());
+            }
+        });
+
+        return getAccessUrl(objectName);
+    }
+
+    /**
+     * 发起分片上传，由调用方逐片上传后完成或中止
+     *
+     * @param objectName 对象名称
+     * @param contentType 内容类型，可为空
+     * @return 分片上传ID
+     */
+    public String initiateMultipartUpload(String objectName, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        return record("multipart-init", () -> getOssClient().initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, objectName, metadata)).getUploadId());
+    }
+
+    /**
+     * 以流的方式上传一个分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId 分片上传ID
+     * @param partNumber 分片序号，从1开始
+     * @param inputStream 分片数据流，由调用方负责关闭
+     * @param size 分片字节数
+     * @return 分片ETag
+     */
+    public String uploadPart(String objectName, String uploadId, int partNumber, InputStream inputStream, long size) {
+        UploadPartRequest partRequest = new UploadPartRequest();
+        partRequest.setBucketName(bucketName);
+        partRequest.setKey(objectName);
+        partRequest.setUploadId(uploadId);
+        partRequest.setInputStream(inputStream);
+        partRequest.setPartSize(size);
+        partRequest.setPartNumber(partNumber);
+        return record("multipart-part", () -> getOssClient().uploadPart(partRequest).getETag());
+    }
+
+    /**
+     * 按分片序号合并已上传的分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId 分片上传ID
+     * @param partETags 分片ETag，下标i对应序号i+1
+     * @return 访问URL
+     */
+    public String completeMultipartUpload(String objectName, String uploadId, List<String> partETags) {
+        List<PartETag> parts = new ArrayList<>(partETags.size());
+        for (int i = 0; i < partETags.size(); i++) {
+            parts.add(new PartETag(i + 1, partETags.get(i)));
+        }
+        record("multipart-complete", () -> getOssClient().completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, parts)));
+        return getAccessUrl(objectName);
+    }
+
+    /**
+     * 中止分片上传，释放已上传的分片
+     *
+     * @param objectName 对象名称
+     * @param uploadId 分片上传ID
+     */
+    public void abortMultipartUpload(String objectName, String uploadId) {
+        record("multipart-abort", () -> {
+            getOssClient().abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+            return null;
+        });
+    }
+
+    /**
+     * 尽量读满缓冲区，返回实际读取的字节数，流结束时返回0
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = inputStream.read(buffer, total, buffer.length - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * 上传本地文件
+     *
+     * @param file 本地文件
+     * @param objectName 对象名称
+     * @return 访问URL
+     */
+    public String upload(File file, String objectName) {
+        record("upload", () -> {
+            try {
+                return getOssClient().putObject(bucketName, objectName, file);
+            } catch (OSSException oe) {
+                throw new RuntimeException("OSS上传文件失败: " + oe.getErrorMessage());
+            } catch (ClientException ce) {
+                throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
+            }
+        });
 
         return getAccessUrl(objectName);
     }
@@ -82,28 +340,91 @@ public class AliOssUtil {
         return stringBuilder.toString();
     }
 
+    /**
+     * 生成限时的PUT直传地址，客户端上传时Content-Type必须与签名一致
+     *
+     * @param objectName 对象名称
+     * @param contentType 内容类型
+     * @param expireMillis 有效期（毫秒）
+     * @return 直传地址
+     */
+    public String generatePresignedPutUrl(String objectName, String contentType, long expireMillis) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, objectName, HttpMethod.PUT);
+        request.setExpiration(new Date(System.currentTimeMillis() + expireMillis));
+        request.setContentType(contentType);
+        return record("presign", () -> getOssClient().generatePresignedUrl(request)).toString();
+    }
+
+    /**
+     * 查询对象元数据
+     *
+     * @param objectName 对象名称
+     * @return 对象元数据，对象不存在时返回null
+     */
+    public ObjectMetadata getObjectMetadata(String objectName) {
+        return record("head", () -> {
+            try {
+                return getOssClient().getObjectMetadata(bucketName, objectName);
+            } catch (OSSException oe) {
+                if (OSSErrorCode.NO_SUCH_KEY.equals(oe.getErrorCode())) {
+                    return null;
+                }
+                throw new RuntimeException("OSS查询对象失败: " + oe.getErrorMessage());
+            } catch (ClientException ce) {
+                throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
+            }
+        });
+    }
+
     /**
      * 删除OSS对象
      *
      * @param objectName 对象名称
      */
     public void delete(String objectName) {
-        // 创建OSSClient实例
-        OSS ossClient = new OSSClientBuilder()
-                .build(endpoint, accessKeyId, accessKeySecret);
+        record("delete", () -> {
+            try {
+                // 删除对象
+                return getOssClient().deleteObject(bucketName, objectName);
+            } catch (OSSException oe) {
+                throw new RuntimeException("OSS删除文件失败: " + oe.getErrorMessage());
+            } catch (ClientException ce) {
+                throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
+            }
+        });
+    }
 
+    /**
+     * 关闭OSS客户端，释放连接池，由Spring容器销毁时调用
+     */
+    public synchronized void shutdown() {
+        if (ossClient != null) {
+            log.info("关闭阿里云OSS客户端");
+            ossClient.shutdown();
+            ossClient = null;
+        }
+    }
+
+    /**
+     * 记录一次OSS操作的耗时，按操作类型和结果打标签
+     */
+    private <T> T record(String operation, Supplier<T> action) {
+        if (meterRegistry == null) {
+            return action.get();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
-            // 删除对象
-            ossClient.deleteObject(bucketName, objectName);
-        } catch (OSSException oe) {
-            throw new RuntimeException("OSS删除文件失败: " + oe.getErrorMessage());
-        } catch (ClientException ce) {
-            throw new RuntimeException("OSS客户端异常: " + ce.getMessage());
+            return action.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
         } finally {
-            // 关闭OSSClient
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
+            sample.stop(Timer.builder("oss.request")
+                    .description("阿里云OSS请求耗时")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
     }
-}
\ No newline at end of file
+}
@@ -1,47 +1,282 @@
 package com.wtu.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wtu.properties.ImageFetchProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.springframework.stereotype.Component;
-import org.springframework.util.Base64Utils;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class ImageBase64Util {
 
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+
+    // 共享连接池的出站客户端
+    private final UpstreamHttpClients upstreamHttpClients;
+    private final ImageFetchProperties fetchProperties;
+
+    // 已编码的图片，按URL缓存并用ETag/Last-Modified校验是否仍然有效
+    private Cache<String, CachedImage> cache;
+
+    // 并行下载线程池
+    private ExecutorService fetchExecutor;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(fetchProperties.getCacheMaxBytes())
+                .weigher((String url, CachedImage image) -> image.dataUri().length())
+                .build();
+
+        AtomicInteger seq = new AtomicInteger();
+        fetchExecutor = new ThreadPoolExecutor(
+                fetchProperties.getThreads(),
+                fetchProperties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(fetchProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-fetch-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        fetchExecutor.shutdown();
+    }
+
+    /**
+     * 并行读取多张图片并转成Base64字符串，返回顺序与输入一致
+     * @param imageUrls 图片公网地址列表
+     * @return 带data:image/png;base64,前缀的Base64字符串列表
+     */
+    public List<String> imageUrlsToBase64(List<String> imageUrls) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(imageUrls.size());
+        for (String imageUrl : imageUrls) {
+            futures.add(CompletableFuture.supplyAsync(() -> imageUrlToBase64(imageUrl), fetchExecutor));
+        }
+
+        List<String> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<String> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+        return results;
+    }
+
     /**
      * 从图片URL读取图片并转成Base64字符串
+     * 命中缓存时发送条件请求，源站返回304则直接复用已编码的结果
      * @param imageUrl 图片公网地址
      * @return 带data:image/png;base64,前缀的Base64字符串
      */
     public String imageUrlToBase64(String imageUrl) {
         try {
-            URL url = new URL(imageUrl);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-            conn.connect();
-
-            try (InputStream inputStream = conn.getInputStream();
-                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                byte[] buffer = new byte[4096];
-                int len;
-                while ((len = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, len);
+            CachedImage cached = cache.getIfPresent(imageUrl);
+            Request.Builder builder = new Request.Builder().url(imageUrl).get();
+            if (cached != null) {
+                if (cached.etag() != null) {
+                    builder.header("If-None-Match", cached.etag());
+                }
+                if (cached.lastModified() != null) {
+                    builder.header("If-Modified-Since", cached.lastModified());
+                }
+            }
+
+            try (Response response = upstreamHttpClients.forUrl(imageUrl).newCall(builder.build()).execute()) {
+                if (response.code() == 304 && cached != null) {
+                    return cached.dataUri();
+                }
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("HTTP状态码 " + response.code());
+                }
+
+                String dataUri = encode(body);
+                String etag = response.header("ETag");
+                String lastModified = response.header("Last-Modified");
+                // 没有校验标识的资源无法判断是否变化，不缓存
+                if (etag != null || lastModified != null) {
+                    cache.put(imageUrl, new CachedImage(etag, lastModified, dataUri));
                 }
-                byte[] imageBytes = outputStream.toByteArray();
-                String base64 = Base64Utils.encodeToString(imageBytes);
-                return "data:image/png;base64," + base64;
+                return dataUri;
             }
         } catch (Exception e) {
             log.error("图片URL转Base64失败: {}", imageUrl, e);
             throw new RuntimeException("图片URL转Base64失败", e);
         }
     }
+
+    /**
+     * 已知长度时按最终大小一次分配数组，响应流经编码器直接写入，不再经过原始字节数组和字符串拼接
+     */
+    private static String encode(ResponseBody body) throws IOException {
+        long length = body.contentLength();
+        if (length < 0 || length > Integer.MAX_VALUE / 2) {
+            return DATA_URI_PREFIX + Base64.getEncoder().encodeToString(body.bytes());
+        }
+
+        byte[] prefix = DATA_URI_PREFIX.getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[prefix.length + (int) ((length + 2) / 3) * 4];
+        System.arraycopy(prefix, 0, out, 0, prefix.length);
+
+        FixedArrayOutputStream sink = new FixedArrayOutputStream(out, prefix.length);
+        try (InputStream in = body.byteStream(); OutputStream encoder = Base64.getEncoder().wrap(sink)) {
+            in.transferTo(encoder);
+        }
+        if (sink.position != out.length) {
+            throw new IOException("图片长度与Content-Length不一致");
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 计算Base64字符串解码后的字节数，不做实际解码
+     * @param base64 Base64字符串，可以带data URI前缀，其中的空白字符（换行等）忽略
+     * @return 解码后的字节数
+     */
+    public static long decodedLength(String base64) {
+        long len = 0;
+        int padding = 0;
+        for (int i = payloadStart(base64); i < base64.length(); i++) {
+            char c = base64.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            len++;
+            padding = c == '=' ? padding + 1 : 0;
+        }
+        if (len % 4 == 1) {
+            throw new IllegalArgumentException("Base64长度不合法: " + len);
+        }
+        return len * 3 / 4 - Math.min(padding, 2);
+    }
+
+    /**
+     * 以流的方式解码Base64字符串，内存占用只有解码器内部的小缓冲
+     * @param base64 Base64字符串，可以带data URI前缀，其中的空白字符（换行等）忽略
+     * @return 解码后的字节流，非法字符会在读取时抛出IOException
+     */
+    public static InputStream decodingStream(String base64) {
+        return Base64.getDecoder().wrap(new AsciiInputStream(base64, payloadStart(base64)));
+    }
+
+    /**
+     * 跳过 data:image/png;base64, 这类前缀，返回Base64正文的起始位置
+     */
+    private static int payloadStart(String base64) {
+        if (base64.startsWith("data:")) {
+            int comma = base64.indexOf(',');
+            if (comma > 0) {
+                return comma + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private record CachedImage(String etag, String lastModified, String dataUri) {
+    }
+
+    /**
+     * 写入预分配数组的输出流，超出数组长度说明实际数据比声明的长
+     */
+    private static final class FixedArrayOutputStream extends OutputStream {
+        private final byte[] buffer;
+        private int position;
+
+        private FixedArrayOutputStream(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position >= buffer.length) {
+                throw new IOException("图片长度与Content-Length不一致");
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (position + len > buffer.length) {
+                throw new IOException("图片长度与Content-Length不一致");
+            }
+            System.arraycopy(b, off, buffer, position, len);
+            position += len;
+        }
+    }
+
+    /**
+     * 直接按字符读取字符串的输入流，跳过空白字符，避免getBytes()再复制一份
+     */
+    private static final class AsciiInputStream extends InputStream {
+        private final String source;
+        private int pos;
+
+        private AsciiInputStream(String source, int start) {
+            this.source = source;
+            this.pos = start;
+        }
+
+        @Override
+        public int read() {
+            while (pos < source.length()) {
+                char c = source.charAt(pos++);
+                if (!isWhitespace(c)) {
+                    // 非ASCII字符映射为非法Base64字符，交给解码器报错
+                    return c < 0x80 ? c : '?';
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            while (n < len && pos < source.length()) {
+                char c = source.charAt(pos++);
+                if (!isWhitespace(c)) {
+                    b[off + n++] = (byte) (c < 0x80 ? c : '?');
+                }
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        @Override
+        public int available() {
+            return source.length() - pos;
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package com.wtu.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * 纯Java图片缩放与JPEG编码工具
+ * 逐级减半缩小再缩到目标尺寸，双线性插值即可得到接近面积平均的效果，速度远快于getScaledInstance
+ */
+public class ImageScaler {
+
+    // 按比例缩放到目标框内
+    public static final String FIT_CONTAIN = "contain";
+    // 铺满目标框，居中裁掉多余部分
+    public static final String FIT_COVER = "cover";
+    // 拉伸到目标框
+    public static final String FIT_FILL = "fill";
+
+    /**
+     * 解码图片，先只读文件头中的宽高，像素数超过上限时不解码直接拒绝，避免小文件解压成超大位图
+     *
+     * @return 解码结果，无法识别的格式返回null
+     * @throws IOException 读取失败或像素数超过上限
+     */
+    public static BufferedImage read(InputStream in, long maxPixels) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("图片像素数 " + pixels + " 超过上限 " + maxPixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按最长边等比缩小，原图比目标小时不放大
+     */
+    public static BufferedImage scaleToMaxEdge(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        return resize(source, 0, 0, width, height,
+                Math.max(1, (int) Math.round(width * ratio)), Math.max(1, (int) Math.round(height * ratio)));
+    }
+
+    /**
+     * 按目标框和适配方式缩放，宽或高为0时按另一边等比计算
+     */
+    public static BufferedImage fit(BufferedImage source, int width, int height, String fit) {
+        int srcWidth = source.getWidth();
+        int srcHeight = source.getHeight();
+        if (width <= 0) {
+            width = Math.max(1, (int) Math.round((double) srcWidth * height / srcHeight));
+        }
+        if (height <= 0) {
+            height = Math.max(1, (int) Math.round((double) srcHeight * width / srcWidth));
+        }
+
+        if (FIT_FILL.equals(fit)) {
+            return resize(source, 0, 0, srcWidth, srcHeight, width, height);
+        }
+        if (FIT_COVER.equals(fit)) {
+            // 取与目标框同比例的最大居中区域再缩放
+            double scale = Math.max((double) width / srcWidth, (double) height / srcHeight);
+            int cropWidth = Math.min(srcWidth, (int) Math.round(width / scale));
+            int cropHeight = Math.min(srcHeight, (int) Math.round(height / scale));
+            return resize(source, (srcWidth - cropWidth) / 2, (srcHeight - cropHeight) / 2,
+                    cropWidth, cropHeight, width, height);
+        }
+        double scale = Math.min((double) width / srcWidth, (double) height / srcHeight);
+        return resize(source, 0, 0, srcWidth, srcHeight,
+                Math.max(1, (int) Math.round(srcWidth * scale)), Math.max(1, (int) Math.round(srcHeight * scale)));
+    }
+
+    /**
+     * 把源图的(x, y, w, h)区域缩放到目标尺寸，缩小时逐级减半；输出为RGB，透明部分铺白底
+     */
+    public static BufferedImage resize(BufferedImage source, int x, int y, int w, int h,
+                                       int targetWidth, int targetHeight) {
+        BufferedImage current = source;
+        int cx = x, cy = y, cw = w, ch = h;
+        do {
+            int width = cw / 2 >= targetWidth ? cw / 2 : targetWidth;
+            int height = ch / 2 >= targetHeight ? ch / 2 : targetHeight;
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(current, 0, 0, width, height, cx, cy, cx + cw, cy + ch, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+            cx = 0;
+            cy = 0;
+            cw = width;
+            ch = height;
+        } while (cw != targetWidth || ch != targetHeight);
+        return current;
+    }
+
+    /**
+     * 编码为JPEG字节数组
+     */
+    public static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeJpeg(image, quality, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 编码为JPEG写入输出流，输出流由调用方负责关闭
+     */
+    public static void writeJpeg(BufferedImage image, float quality, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -6,15 +6,10 @@ import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.PropertyNamingStrategy;
 import com.alibaba.fastjson.serializer.SerializeConfig;
 import com.alibaba.fastjson.serializer.SerializerFeature;
-import com.volcengine.service.visual.IVisualService;
-import com.volcengine.service.visual.impl.VisualServiceImpl;
 import com.wtu.exception.ServiceException;
-import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
-import org.springframework.core.io.ClassPathResource;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 
 /**
  * @author gaochen
@@ -91,36 +86,6 @@ public class ModelUtils {
         }
 
     }
-    /**
-     * 帮我们创建VisualService实例，不需要再一个个的赋值ak sk了
-     *
-     * @param region 具体数值看火山引擎对应模型给的action
-     * @return VisualService实例
-     */
-    public static IVisualService createVisualService(String region) throws Exception {
-        YamlPropertiesFactoryBean yamlProperties = new YamlPropertiesFactoryBean();
-        yamlProperties.setResources(new ClassPathResource("application-dev.yml"));
-        Properties properties = yamlProperties.getObject();
-        String ak = (String) properties.get("vision.doubao.ak");
-        String sk = (String) properties.get("vision.doubao.sk");
-        IVisualService visualService = VisualServiceImpl.getInstance(region);
-        visualService.setAccessKey(ak);
-        visualService.setSecretKey(sk);
-        return visualService;
-    }
-
-    public static IVisualService createVisualService() throws Exception {
-        YamlPropertiesFactoryBean yamlProperties = new YamlPropertiesFactoryBean();
-        yamlProperties.setResources(new ClassPathResource("application-dev.yml"));
-        Properties properties = yamlProperties.getObject();
-        String ak = (String) properties.get("vision.doubao.ak");
-        String sk = (String) properties.get("vision.doubao.sk");
-        IVisualService visualService = VisualServiceImpl.getInstance();
-        visualService.setAccessKey(ak);
-        visualService.setSecretKey(sk);
-        return visualService;
-    }
-
     /**
      * 快速的从Json格式中拿取data数据中的某个字段，
      *跳过先前手动 拿取data 拿取字段 的逻辑
@@ -2,12 +2,16 @@ package com.wtu.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,6 +20,13 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtil {
 
+    // 值仍是加锁时写入的令牌才删除，锁已过期被别人拿到时不会误删
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -35,6 +46,13 @@ public class RedisUtil {
         redisTemplate.opsForValue().set(key, value, timeout, unit);
     }
 
+    /**
+     * 不存在时才设置缓存并设置过期时间，返回是否设置成功
+     */
+    public Boolean setIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+    }
+
     /**
      * 获取缓存
      */
@@ -70,6 +88,13 @@ public class RedisUtil {
         return redisTemplate.expire(key, timeout, unit);
     }
 
+    /**
+     * 目标key不存在时才重命名，返回是否重命名成功
+     */
+    public Boolean renameIfAbsent(String oldKey, String newKey) {
+        return redisTemplate.renameIfAbsent(oldKey, newKey);
+    }
+
     /**
      * 获取过期时间
      */
@@ -121,6 +146,13 @@ public class RedisUtil {
         return redisTemplate.opsForHash().get(key, hashKey);
     }
 
+    /**
+     * Hash批量获取，返回值与hashKeys一一对应，不存在的为null
+     */
+    public List<Object> hMultiGet(String key, Collection<Object> hashKeys) {
+        return redisTemplate.opsForHash().multiGet(key, hashKeys);
+    }
+
     /**
      * Hash批量设置
      */
@@ -216,6 +248,13 @@ public class RedisUtil {
         return redisTemplate.opsForZSet().reverseRange(key, start, end);
     }
 
+    /**
+     * ZSet按分数区间获取（从小到大），最多count个
+     */
+    public Set<Object> zRangeByScore(String key, double min, double max, long count) {
+        return redisTemplate.opsForZSet().rangeByScore(key, min, max, 0, count);
+    }
+
     /**
      * ZSet移除
      */
@@ -223,6 +262,13 @@ public class RedisUtil {
         return redisTemplate.opsForZSet().remove(key, values);
     }
 
+    /**
+     * ZSet按排名区间删除（从小到大）
+     */
+    public Long zRemoveRange(String key, long start, long end) {
+        return redisTemplate.opsForZSet().removeRange(key, start, end);
+    }
+
     /**
      * ZSet递增分数
      */
@@ -287,5 +333,49 @@ public class RedisUtil {
     public Long lRemove(String key, long count, Object value) {
         return redisTemplate.opsForList().remove(key, count, value);
     }
+
+    /**
+     * List只保留指定范围
+     */
+    public void lTrim(String key, long start, long end) {
+        redisTemplate.opsForList().trim(key, start, end);
+    }
+
+    // =============================分布式锁=============================
+
+    /**
+     * 尝试加锁，成功时返回本次持有的令牌，已被占用时返回null；释放时需传回令牌
+     */
+    public String tryLock(String key, long timeout, TimeUnit unit) {
+        String token = UUID.randomUUID().toString();
+        return Boolean.TRUE.equals(setIfAbsent(key, token, timeout, unit)) ? token : null;
+    }
+
+    /**
+     * 释放锁，只删除令牌相同的锁，返回是否释放成功
+     */
+    public boolean unlock(String key, String token) {
+        if (token == null) {
+            return false;
+        }
+        Long deleted = execute(UNLOCK_SCRIPT, List.of(key), token);
+        return deleted != null && deleted > 0;
+    }
+
+    // =============================脚本与管道=============================
+
+    /**
+     * 执行Lua脚本
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return redisTemplate.execute(script, keys, args);
+    }
+
+    /**
+     * 管道执行多条命令，一次网络往返，返回值与命令顺序一致
+     */
+    public List<Object> executePipelined(SessionCallback<?> session) {
+        return redisTemplate.executePipelined(session);
+    }
 }
 
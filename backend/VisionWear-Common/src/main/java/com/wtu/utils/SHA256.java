@@ -0,0 +1,56 @@
+package com.wtu.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256摘要工具，用于按内容寻址存储
+ * 十六进制编码与MD5共用同一实现
+ */
+public class SHA256 {
+
+    /**
+     * 新建一个SHA-256摘要器
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // JDK必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 获得字节数组的SHA-256值
+     */
+    public static String sha256(byte[] bytes) {
+        return byteArrayToHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * 读完输入流并返回其SHA-256值，流由调用方负责关闭
+     */
+    public static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return byteArrayToHex(digest.digest());
+    }
+
+    /**
+     * 将摘要器当前结果转为十六进制字符串
+     */
+    public static String toHex(MessageDigest digest) {
+        return byteArrayToHex(digest.digest());
+    }
+
+    private static String byteArrayToHex(byte[] bytes) {
+        return MD5.byteArrayToHex(bytes);
+    }
+}
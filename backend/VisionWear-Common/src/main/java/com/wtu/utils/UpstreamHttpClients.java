@@ -0,0 +1,246 @@
+package com.wtu.utils;
+
+import com.wtu.properties.HttpClientProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站HTTP客户端集合
+ * 所有域名共享同一个OkHttpClient的连接池和调度器，只为配置过超时的域名派生客户端；
+ * RestTemplate、图片下载等都从这里取客户端，统一记录上游耗时。
+ * 访问的域名可能来自用户和厂商返回的图片地址，派生客户端和指标标签都只按配置项区分，数量不随访问的域名增长
+ */
+public class UpstreamHttpClients {
+
+    private final OkHttpClient baseClient;
+    private final HttpClientProperties properties;
+
+    // 按配置项（完整域名或后缀）缓存的派生客户端，数量以配置为上限
+    private final Map<String, OkHttpClient> hostClients = new ConcurrentHashMap<>();
+
+    public UpstreamHttpClients(OkHttpClient baseClient, HttpClientProperties properties) {
+        this.baseClient = baseClient;
+        this.properties = properties;
+    }
+
+    /**
+     * 获取访问指定URL应使用的客户端
+     */
+    public OkHttpClient forUrl(String url) {
+        HttpUrl httpUrl = HttpUrl.get(url);
+        return forHost(httpUrl.host());
+    }
+
+    /**
+     * 获取访问指定域名应使用的客户端，没有单独配置的域名直接使用共享客户端
+     */
+    public OkHttpClient forHost(String host) {
+        String key = matchHost(properties.getHosts(), host);
+        if (key == null) {
+            return baseClient;
+        }
+        return hostClients.computeIfAbsent(key, k -> {
+            HttpClientProperties.Timeouts timeouts = properties.getHosts().get(k);
+            OkHttpClient.Builder builder = baseClient.newBuilder();
+            if (timeouts.getConnectTimeout() != null) {
+                builder.connectTimeout(timeouts.getConnectTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (timeouts.getReadTimeout() != null) {
+                builder.readTimeout(timeouts.getReadTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (timeouts.getWriteTimeout() != null) {
+                builder.writeTimeout(timeouts.getWriteTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (timeouts.getCallTimeout() != null) {
+                builder.callTimeout(timeouts.getCallTimeout(), TimeUnit.MILLISECONDS);
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * 供RestTemplate使用的请求工厂，按请求的域名选择客户端
+     * Spring自带的OkHttp3请求工厂已计划移除，这里直接用OkHttp执行请求
+     */
+    public ClientHttpRequestFactory requestFactory() {
+        return (uri, httpMethod) -> new OkHttpClientHttpRequest(forHost(uri.getHost()), uri, httpMethod);
+    }
+
+    /**
+     * 返回域名命中的配置项：先按完整域名匹配，再按最长的"."后缀匹配，都未命中时返回null
+     */
+    static String matchHost(Map<String, HttpClientProperties.Timeouts> hosts, String host) {
+        if (host == null) {
+            return null;
+        }
+        if (hosts.containsKey(host)) {
+            return host;
+        }
+        String matched = null;
+        for (String key : hosts.keySet()) {
+            if (key.startsWith(".") && host.endsWith(key) && (matched == null || key.length() > matched.length())) {
+                matched = key;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 请求体先写入内存，执行时一次性交给OkHttp
+     */
+    private static final class OkHttpClientHttpRequest extends AbstractClientHttpRequest {
+
+        private final OkHttpClient client;
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        // OkHttp要求这些方法必须带请求体，空请求体也要显式传入
+        private static final Set<String> BODY_METHODS = Set.of("POST", "PUT", "PATCH");
+
+        private OkHttpClientHttpRequest(OkHttpClient client, URI uri, HttpMethod method) {
+            this.client = client;
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            byte[] bytes = body.toByteArray();
+            String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+            RequestBody requestBody = null;
+            if (bytes.length > 0 || BODY_METHODS.contains(method.name())) {
+                requestBody = RequestBody.create(bytes, contentType != null ? MediaType.parse(contentType) : null);
+            }
+
+            Request.Builder builder = new Request.Builder()
+                    .url(uri.toURL())
+                    .method(method.name(), requestBody);
+            headers.forEach((name, values) -> {
+                for (String value : values) {
+                    builder.addHeader(name, value);
+                }
+            });
+            return new OkHttpClientHttpResponse(client.newCall(builder.build()).execute());
+        }
+    }
+
+    private static final class OkHttpClientHttpResponse implements ClientHttpResponse {
+
+        private final Response response;
+        private HttpHeaders headers;
+
+        private OkHttpClientHttpResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.code());
+        }
+
+        @Override
+        public String getStatusText() {
+            return response.message();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                HttpHeaders result = new HttpHeaders();
+                for (String name : response.headers().names()) {
+                    for (String value : response.headers(name)) {
+                        result.add(name, value);
+                    }
+                }
+                headers = result;
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            ResponseBody body = response.body();
+            return body != null ? body.byteStream() : InputStream.nullInputStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+
+    /**
+     * 记录每次上游调用的耗时，按域名、方法和状态码类别打标签
+     * 域名标签取命中的配置项，未配置的域名统一记为other，标签取值数量以配置为上限
+     */
+    public static class MetricsInterceptor implements Interceptor {
+
+        private static final String OTHER_HOST = "other";
+
+        private final MeterRegistry meterRegistry;
+        private final HttpClientProperties properties;
+
+        public MetricsInterceptor(MeterRegistry meterRegistry, HttpClientProperties properties) {
+            this.meterRegistry = meterRegistry;
+            this.properties = properties;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            long start = System.nanoTime();
+            String status = "IO_ERROR";
+            try {
+                Response response = chain.proceed(request);
+                status = response.code() / 100 + "xx";
+                return response;
+            } finally {
+                Timer.builder("http.client.upstream")
+                        .description("出站HTTP请求耗时")
+                        .tag("host", hostTag(request.url().host()))
+                        .tag("method", request.method())
+                        .tag("status", status)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private String hostTag(String host) {
+            String key = matchHost(properties.getHosts(), host);
+            return key != null ? key : OTHER_HOST;
+        }
+    }
+}
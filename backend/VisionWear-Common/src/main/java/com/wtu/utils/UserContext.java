@@ -1,5 +1,7 @@
 package com.wtu.utils;
 
+import java.util.function.Supplier;
+
 /**
  * 用户上下文工具类
  * 使用 ThreadLocal 存储当前请求的用户信息
@@ -50,4 +52,26 @@ public class UserContext {
         USER_ID.remove();
         USER_NAME.remove();
     }
+
+    /**
+     * 包装任务，使其在其他线程执行时带上当前线程的用户信息，执行完后恢复原值
+     * @param task 待执行任务
+     * @return 携带用户上下文的任务
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Long userId = USER_ID.get();
+        String userName = USER_NAME.get();
+        return () -> {
+            Long previousUserId = USER_ID.get();
+            String previousUserName = USER_NAME.get();
+            USER_ID.set(userId);
+            USER_NAME.set(userName);
+            try {
+                return task.get();
+            } finally {
+                USER_ID.set(previousUserId);
+                USER_NAME.set(previousUserName);
+            }
+        };
+    }
 }
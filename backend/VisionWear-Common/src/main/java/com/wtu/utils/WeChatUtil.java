@@ -21,8 +21,13 @@ public class WeChatUtil {
 
    private static final String appId=null;
    private static final String secret=null;
-    @Autowired
     private static RestTemplate restTemplate;
+
+    // 静态字段无法直接@Autowired，通过setter注入共享的RestTemplate
+    @Autowired
+    public void setRestTemplate(RestTemplate restTemplate) {
+        WeChatUtil.restTemplate = restTemplate;
+    }
     /**
      * @description: 获取微信用户信息
      * @param: code 授权码
@@ -0,0 +1,22 @@
+package com.wtu.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图库中的一张图片
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GalleryImageVO {
+    private String imageId;           // 图片ID
+    private String imageUrl;          // 图片OSS访问URL
+    private String thumbUrl;          // 缩略图URL，未生成时与原图相同
+    private LocalDateTime createTime; // 创建时间
+}
@@ -0,0 +1,21 @@
+package com.wtu.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 图库分页结果，按创建时间倒序，用游标翻页
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GalleryPageVO {
+    private List<GalleryImageVO> images; // 本页图片
+    private String nextCursor;           // 下一页游标，没有更多时为空
+    private Boolean hasMore;             // 是否还有下一页
+}
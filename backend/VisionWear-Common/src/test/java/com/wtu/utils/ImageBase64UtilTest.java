@@ -0,0 +1,85 @@
+package com.wtu.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式解码与整体解码的结果一致性
+ */
+class ImageBase64UtilTest {
+
+    @Test
+    void decodedLengthHandlesPadding() {
+        for (int size = 0; size < 10; size++) {
+            String base64 = Base64.getEncoder().encodeToString(new byte[size]);
+            assertEquals(size, ImageBase64Util.decodedLength(base64), base64);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ImageBase64Util.decodedLength("AAAAA"));
+    }
+
+    @Test
+    void decodedLengthIgnoresWhitespace() {
+        byte[] data = randomBytes(1000);
+        String base64 = Base64.getMimeEncoder().encodeToString(data);
+        assertTrue(base64.contains("\r\n"));
+        assertEquals(data.length, ImageBase64Util.decodedLength(base64));
+        assertEquals(1, ImageBase64Util.decodedLength("AQ==\n"));
+        assertEquals(2, ImageBase64Util.decodedLength("AQI=\r\n"));
+    }
+
+    @Test
+    void decodedLengthSkipsDataUriPrefix() {
+        byte[] data = randomBytes(101);
+        String base64 = Base64.getEncoder().encodeToString(data);
+        assertEquals(data.length, ImageBase64Util.decodedLength("data:image/png;base64," + base64));
+        assertEquals(data.length, ImageBase64Util.decodedLength("data:image/jpeg;base64," + base64));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 100_003})
+    void decodingStreamMatchesDecoder(int size) throws IOException {
+        byte[] data = randomBytes(size);
+        String base64 = Base64.getEncoder().encodeToString(data);
+        assertArrayEquals(Base64.getDecoder().decode(base64), decodeStreaming(base64));
+    }
+
+    @Test
+    void decodingStreamSkipsPrefixAndWhitespace() throws IOException {
+        byte[] data = randomBytes(1000);
+        assertArrayEquals(data, decodeStreaming(Base64.getMimeEncoder().encodeToString(data)));
+        assertArrayEquals(data, decodeStreaming("data:image/png;base64," + Base64.getEncoder().encodeToString(data)));
+    }
+
+    @Test
+    void decodingStreamRejectsIllegalCharacters() {
+        assertThrows(IOException.class, () -> {
+            try (InputStream in = ImageBase64Util.decodingStream("AAAA中文AA")) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        });
+    }
+
+    private static byte[] decodeStreaming(String base64) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = ImageBase64Util.decodingStream(base64)) {
+            in.transferTo(out);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,121 @@
+package com.wtu.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageScalerTest {
+
+    @Test
+    void scaleToMaxEdgeKeepsAspectRatio() {
+        BufferedImage scaled = ImageScaler.scaleToMaxEdge(image(400, 200), 100);
+        assertEquals(100, scaled.getWidth());
+        assertEquals(50, scaled.getHeight());
+    }
+
+    @Test
+    void scaleToMaxEdgeNeverEnlarges() {
+        BufferedImage scaled = ImageScaler.scaleToMaxEdge(image(400, 200), 1000);
+        assertEquals(400, scaled.getWidth());
+        assertEquals(200, scaled.getHeight());
+    }
+
+    @Test
+    void containFitsInsideBox() {
+        BufferedImage fitted = ImageScaler.fit(image(400, 200), 100, 100, ImageScaler.FIT_CONTAIN);
+        assertEquals(100, fitted.getWidth());
+        assertEquals(50, fitted.getHeight());
+    }
+
+    @Test
+    void zeroEdgeFollowsAspectRatio() {
+        BufferedImage fitted = ImageScaler.fit(image(400, 200), 0, 50, ImageScaler.FIT_CONTAIN);
+        assertEquals(100, fitted.getWidth());
+        assertEquals(50, fitted.getHeight());
+    }
+
+    @Test
+    void fillStretchesToBox() {
+        BufferedImage fitted = ImageScaler.fit(image(400, 200), 100, 30, ImageScaler.FIT_FILL);
+        assertEquals(100, fitted.getWidth());
+        assertEquals(30, fitted.getHeight());
+    }
+
+    @Test
+    void coverCropsTheCenter() {
+        // 左四分之一红、中间一半绿、右四分之一蓝；裁成正方形后只剩中间的绿色
+        BufferedImage source = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = source.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 100, 200);
+        g.setColor(Color.GREEN);
+        g.fillRect(100, 0, 200, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(300, 0, 100, 200);
+        g.dispose();
+
+        BufferedImage fitted = ImageScaler.fit(source, 100, 100, ImageScaler.FIT_COVER);
+        assertEquals(100, fitted.getWidth());
+        assertEquals(100, fitted.getHeight());
+        for (int x : new int[]{2, 50, 97}) {
+            Color color = new Color(fitted.getRGB(x, 50));
+            assertTrue(color.getGreen() > 200 && color.getRed() < 50 && color.getBlue() < 50, "x=" + x + " " + color);
+        }
+    }
+
+    @Test
+    void transparentPixelsBecomeWhite() {
+        BufferedImage source = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage scaled = ImageScaler.scaleToMaxEdge(source, 32);
+        assertEquals(Color.WHITE.getRGB(), scaled.getRGB(16, 16));
+    }
+
+    @Test
+    void encodeJpegRoundTrip() throws IOException {
+        byte[] jpeg = ImageScaler.encodeJpeg(image(120, 80), 0.8f);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertEquals(120, decoded.getWidth());
+        assertEquals(80, decoded.getHeight());
+    }
+
+    @Test
+    void readAcceptsImagesWithinPixelLimit() throws IOException {
+        BufferedImage decoded = ImageScaler.read(new ByteArrayInputStream(png(100, 80)), 100 * 80);
+        assertEquals(100, decoded.getWidth());
+        assertEquals(80, decoded.getHeight());
+    }
+
+    @Test
+    void readRejectsImagesOverPixelLimit() throws IOException {
+        byte[] png = png(100, 80);
+        assertThrows(IOException.class, () -> ImageScaler.read(new ByteArrayInputStream(png), 100 * 80 - 1));
+    }
+
+    @Test
+    void readReturnsNullForUnknownFormat() throws IOException {
+        assertNull(ImageScaler.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}), Long.MAX_VALUE));
+    }
+
+    private static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image(width, height), "png", out);
+        return out.toByteArray();
+    }
+}
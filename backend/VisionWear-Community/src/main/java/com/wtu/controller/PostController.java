@@ -3,10 +3,14 @@ package com.wtu.controller;
 import com.wtu.dto.PostCreateDTO;
 import com.wtu.dto.PostUpdateDTO;
 import com.wtu.result.Result;
+import com.wtu.service.PostInteractionService;
 import com.wtu.service.PostService;
+import com.wtu.vo.PostFeedVO;
+import com.wtu.vo.PostInteractionVO;
 import com.wtu.vo.PostVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 public class PostController {
 
     private final PostService postService;
+    private final PostInteractionService postInteractionService;
 
     /**
      * 创建帖子
@@ -42,9 +47,9 @@ public class PostController {
      */
     @GetMapping("/post/{id}")
     @Operation(summary = "获取帖子详情")
-    public Result<PostVO> getPostById(@PathVariable("id") Long postId) {
+    public Result<PostVO> getPostById(@PathVariable("id") Long postId, HttpServletRequest request) {
         log.info("获取帖子详情，帖子ID: {}", postId);
-        PostVO postVO = postService.getPostById(postId);
+        PostVO postVO = postService.getPostById(postId, clientIp(request));
         return Result.success(postVO);
     }
 
@@ -70,5 +75,97 @@ public class PostController {
         postService.deletePost(postId);
         return Result.success("删除帖子成功");
     }
-}
 
+    /**
+     * 点赞帖子
+     */
+    @PostMapping("/post/{id}/like")
+    @Operation(summary = "点赞帖子")
+    public Result<PostInteractionVO> likePost(@PathVariable("id") Long postId) {
+        return Result.success(postInteractionService.like(postId), "点赞成功");
+    }
+
+    /**
+     * 取消点赞
+     */
+    @DeleteMapping("/post/{id}/like")
+    @Operation(summary = "取消点赞")
+    public Result<PostInteractionVO> unlikePost(@PathVariable("id") Long postId) {
+        return Result.success(postInteractionService.unlike(postId), "取消点赞成功");
+    }
+
+    /**
+     * 收藏帖子
+     */
+    @PostMapping("/post/{id}/collect")
+    @Operation(summary = "收藏帖子")
+    public Result<PostInteractionVO> collectPost(@PathVariable("id") Long postId) {
+        return Result.success(postInteractionService.collect(postId), "收藏成功");
+    }
+
+    /**
+     * 取消收藏
+     */
+    @DeleteMapping("/post/{id}/collect")
+    @Operation(summary = "取消收藏")
+    public Result<PostInteractionVO> uncollectPost(@PathVariable("id") Long postId) {
+        return Result.success(postInteractionService.uncollect(postId), "取消收藏成功");
+    }
+
+    /**
+     * 最新帖子信息流
+     */
+    @GetMapping("/posts/latest")
+    @Operation(summary = "最新帖子信息流（游标分页）")
+    public Result<PostFeedVO> listLatestPosts(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        return Result.success(postService.listLatestPosts(cursor, size));
+    }
+
+    /**
+     * 按标签查询帖子信息流
+     */
+    @GetMapping("/posts/tag/{tagId}")
+    @Operation(summary = "按标签查询帖子信息流（游标分页）")
+    public Result<PostFeedVO> listPostsByTag(@PathVariable("tagId") Long tagId,
+                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "size", required = false) Integer size) {
+        return Result.success(postService.listPostsByTag(tagId, cursor, size));
+    }
+
+    /**
+     * 查询用户发布的帖子信息流
+     */
+    @GetMapping("/posts/author/{userId}")
+    @Operation(summary = "查询用户发布的帖子信息流（游标分页）")
+    public Result<PostFeedVO> listPostsByAuthor(@PathVariable("userId") Long userId,
+                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                @RequestParam(value = "size", required = false) Integer size) {
+        return Result.success(postService.listPostsByAuthor(userId, cursor, size));
+    }
+
+    /**
+     * 热门帖子信息流
+     */
+    @GetMapping("/posts/hot")
+    @Operation(summary = "热门帖子信息流（按热度排行分页）")
+    public Result<PostFeedVO> listHotPosts(@RequestParam(value = "cursor", required = false) String cursor,
+                                           @RequestParam(value = "size", required = false) Integer size) {
+        return Result.success(postService.listHotPosts(cursor, size));
+    }
+
+    /**
+     * 经网关转发时取X-Forwarded-For中的最后一个地址，即网关追加的对端地址；
+     * 前面的地址由客户端自行填写，不能用于去重
+     */
+    private static String clientIp(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isBlank()) {
+            String last = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            if (!last.isEmpty()) {
+                return last;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -37,5 +37,16 @@ public class PostTag implements Serializable {
 
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
+
+    // 以下为帖子排序键的冗余副本，按标签分页时只扫描 post_tag 的索引，不必回表 post 排序
+
+    @Schema(description = "帖子状态（冗余）")
+    private Integer postStatus;
+
+    @Schema(description = "帖子是否置顶（冗余）")
+    private Integer postIsTop;
+
+    @Schema(description = "帖子创建时间（冗余）")
+    private LocalDateTime postCreateTime;
 }
 
@@ -2,7 +2,11 @@ package com.wtu.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wtu.entity.CollectRecord;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 收藏记录Mapper接口
@@ -11,5 +15,15 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface CollectRecordMapper extends BaseMapper<CollectRecord> {
-}
 
+    /**
+     * 多行插入收藏记录，已存在的记录（唯一索引冲突）直接忽略
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO collect_record (user_id, post_id, folder_id, create_time) VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.userId}, #{r.postId}, #{r.folderId}, #{r.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("records") List<CollectRecord> records);
+}
@@ -2,7 +2,11 @@ package com.wtu.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wtu.entity.LikeRecord;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 点赞记录Mapper接口
@@ -11,5 +15,15 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface LikeRecordMapper extends BaseMapper<LikeRecord> {
-}
 
+    /**
+     * 多行插入点赞记录，已存在的记录（唯一索引冲突）直接忽略
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO like_record (user_id, target_id, target_type, create_time) VALUES " +
+            "<foreach collection='records' item='r' separator=','>" +
+            "(#{r.userId}, #{r.targetId}, #{r.targetType}, #{r.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("records") List<LikeRecord> records);
+}
@@ -3,6 +3,10 @@ package com.wtu.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wtu.entity.Post;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 帖子Mapper接口
@@ -11,5 +15,55 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface PostMapper extends BaseMapper<Post> {
-}
 
+    /**
+     * 一条语句为多个帖子累加浏览量，只改 view_count，不覆盖其他列
+     *
+     * @param deltas 帖子ID -> 浏览增量
+     */
+    @Update("<script>" +
+            "UPDATE post SET view_count = view_count + CASE post_id " +
+            "<foreach collection='deltas' index='postId' item='delta'>" +
+            "WHEN #{postId} THEN #{delta} " +
+            "</foreach>" +
+            "END WHERE post_id IN " +
+            "<foreach collection='deltas' index='postId' open='(' separator=',' close=')'>" +
+            "#{postId}" +
+            "</foreach>" +
+            "</script>")
+    int incrementViewCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 一条语句为多个帖子累加点赞数
+     *
+     * @param deltas 帖子ID -> 点赞增量（可为负）
+     */
+    @Update("<script>" +
+            "UPDATE post SET like_count = GREATEST(like_count + CASE post_id " +
+            "<foreach collection='deltas' index='postId' item='delta'>" +
+            "WHEN #{postId} THEN #{delta} " +
+            "</foreach>" +
+            "END, 0) WHERE post_id IN " +
+            "<foreach collection='deltas' index='postId' open='(' separator=',' close=')'>" +
+            "#{postId}" +
+            "</foreach>" +
+            "</script>")
+    int incrementLikeCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 一条语句为多个帖子累加收藏数
+     *
+     * @param deltas 帖子ID -> 收藏增量（可为负）
+     */
+    @Update("<script>" +
+            "UPDATE post SET collect_count = GREATEST(collect_count + CASE post_id " +
+            "<foreach collection='deltas' index='postId' item='delta'>" +
+            "WHEN #{postId} THEN #{delta} " +
+            "</foreach>" +
+            "END, 0) WHERE post_id IN " +
+            "<foreach collection='deltas' index='postId' open='(' separator=',' close=')'>" +
+            "#{postId}" +
+            "</foreach>" +
+            "</script>")
+    int incrementCollectCounts(@Param("deltas") Map<Long, Long> deltas);
+}
@@ -0,0 +1,33 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 热门帖子排行配置
+ *
+ * @author WTU
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.community.hot")
+public class PostHotProperties {
+    // 热度半衰期（小时）：经过一个半衰期，之前的互动贡献减半
+    private double halfLifeHours = 24;
+    // 各类互动的权重
+    private double viewWeight = 1;
+    private double likeWeight = 5;
+    private double collectWeight = 8;
+    private double commentWeight = 10;
+    // 浏览去重窗口（毫秒）：同一用户（未登录时按IP）在窗口内多次浏览同一帖子只计一次热度
+    private long viewDedupWindow = 3600000;
+    // 标记为热门（is_hot=1）的帖子数
+    private int topK = 100;
+    // 排行榜最多保留的帖子数，超出部分按热度从低到高裁掉
+    private int maxSize = 10000;
+    // 刷新热门标记并裁剪排行榜的间隔（毫秒）
+    private long refreshInterval = 60000;
+    // 刷新锁的过期时间（毫秒），多实例部署时同一时刻只有一个实例刷新
+    private long lockTimeout = 60000;
+}
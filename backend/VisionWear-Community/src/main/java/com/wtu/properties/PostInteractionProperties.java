@@ -0,0 +1,24 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 点赞/收藏配置
+ *
+ * @author WTU
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.community.interaction")
+public class PostInteractionProperties {
+    // 把待持久化事件写入MySQL的间隔（毫秒）
+    private long flushInterval = 1000;
+    // 每批处理的事件数
+    private int batchSize = 500;
+    // Redis中帖子点赞/收藏成员集合的过期时间（秒），过期后按需从MySQL重新加载
+    private long memberTtl = 7 * 24 * 3600;
+    // 写回锁的过期时间（毫秒），多实例部署时同一时刻只有一个实例写回
+    private long lockTimeout = 60000;
+}
@@ -0,0 +1,22 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子浏览量写回配置
+ *
+ * @author WTU
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.community.view")
+public class PostViewProperties {
+    // 把Redis中累积的浏览增量写回MySQL的间隔（毫秒）
+    private long flushInterval = 5000;
+    // 单条UPDATE语句最多合并的帖子数
+    private int batchSize = 500;
+    // 写回锁的过期时间（毫秒），多实例部署时同一时刻只有一个实例写回
+    private long lockTimeout = 60000;
+}
@@ -0,0 +1,62 @@
+package com.wtu.service;
+
+import java.util.List;
+
+/**
+ * 热门帖子排行
+ * 每次互动按时间衰减后累加到Redis有序集合中的热度分，排序无需定期全量重算
+ *
+ * @author WTU
+ */
+public interface PostHotRankService {
+
+    /**
+     * 记录一次浏览，同一浏览者在去重窗口内只计一次
+     *
+     * @param postId 帖子ID
+     * @param viewer 浏览者标识（用户ID或IP），为null时不计入热度
+     */
+    void recordView(Long postId, String viewer);
+
+    /**
+     * 记录一次点赞
+     *
+     * @param postId 帖子ID
+     */
+    void recordLike(Long postId);
+
+    /**
+     * 记录一次收藏
+     *
+     * @param postId 帖子ID
+     */
+    void recordCollect(Long postId);
+
+    /**
+     * 记录一次评论
+     *
+     * @param postId 帖子ID
+     */
+    void recordComment(Long postId);
+
+    /**
+     * 把帖子移出排行榜（如帖子被删除）
+     *
+     * @param postId 帖子ID
+     */
+    void remove(Long postId);
+
+    /**
+     * 按热度从高到低读取一段排行
+     *
+     * @param offset 起始名次（从0开始）
+     * @param count  数量
+     * @return 帖子ID列表
+     */
+    List<Long> getHotPostIds(long offset, int count);
+
+    /**
+     * 把排行前K的帖子标记为热门、其余取消标记，并裁剪排行榜尾部，由定时器调用
+     */
+    void refreshHotPosts();
+}
@@ -0,0 +1,34 @@
+package com.wtu.service;
+
+import com.wtu.entity.Post;
+import com.wtu.vo.PostCardVO;
+import com.wtu.vo.PostVO;
+
+import java.util.List;
+
+/**
+ * 帖子批量组装
+ * 一批帖子的图片、标签各用一次IN查询加载，点赞与收藏状态用一次Redis管道往返，查询次数与帖子数量无关
+ *
+ * @author WTU
+ */
+public interface PostHydrator {
+
+    /**
+     * 把一批帖子组装成VO，返回顺序与输入一致
+     *
+     * @param posts         帖子列表
+     * @param currentUserId 当前用户ID，未登录时为null
+     * @return 帖子VO列表
+     */
+    List<PostVO> hydrate(List<Post> posts, Long currentUserId);
+
+    /**
+     * 把一批帖子组装成信息流卡片，不加载图片列表，返回顺序与输入一致
+     *
+     * @param posts         帖子列表（只需卡片字段）
+     * @param currentUserId 当前用户ID，未登录时为null
+     * @return 帖子卡片列表
+     */
+    List<PostCardVO> hydrateCards(List<Post> posts, Long currentUserId);
+}
@@ -0,0 +1,79 @@
+package com.wtu.service;
+
+import com.wtu.vo.PostInteractionVO;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 帖子点赞/收藏服务
+ * 成员关系与计数以Redis中按帖子划分的Set为准，变更通过Redis中的待持久化队列异步批量写入MySQL
+ *
+ * @author WTU
+ */
+public interface PostInteractionService {
+
+    /**
+     * 单个帖子的点赞/收藏状态
+     *
+     * @param liked        当前用户是否点赞
+     * @param collected    当前用户是否收藏
+     * @param likeCount    点赞数
+     * @param collectCount 收藏数
+     */
+    record InteractionState(boolean liked, boolean collected, int likeCount, int collectCount) {
+    }
+
+    /**
+     * 点赞帖子，重复点赞不重复计数
+     *
+     * @param postId 帖子ID
+     * @return 操作后的状态
+     */
+    PostInteractionVO like(Long postId);
+
+    /**
+     * 取消点赞
+     *
+     * @param postId 帖子ID
+     * @return 操作后的状态
+     */
+    PostInteractionVO unlike(Long postId);
+
+    /**
+     * 收藏帖子（默认收藏夹），重复收藏不重复计数
+     *
+     * @param postId 帖子ID
+     * @return 操作后的状态
+     */
+    PostInteractionVO collect(Long postId);
+
+    /**
+     * 取消收藏
+     *
+     * @param postId 帖子ID
+     * @return 操作后的状态
+     */
+    PostInteractionVO uncollect(Long postId);
+
+    /**
+     * 批量查询一组帖子的点赞/收藏状态，Redis中已加载的帖子只需一次管道往返
+     *
+     * @param postIds 帖子ID列表
+     * @param userId  当前用户ID，未登录时为null
+     * @return 帖子ID -> 状态
+     */
+    Map<Long, InteractionState> getStates(Collection<Long> postIds, Long userId);
+
+    /**
+     * 删除帖子后清除其点赞/收藏成员集合，之后的操作会重新校验帖子状态
+     *
+     * @param postId 帖子ID
+     */
+    void evict(Long postId);
+
+    /**
+     * 把待持久化队列中的点赞/收藏变更批量写入MySQL，由定时器调用
+     */
+    void flushOutbox();
+}
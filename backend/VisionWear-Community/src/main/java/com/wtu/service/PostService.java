@@ -2,6 +2,7 @@ package com.wtu.service;
 
 import com.wtu.dto.PostCreateDTO;
 import com.wtu.dto.PostUpdateDTO;
+import com.wtu.vo.PostFeedVO;
 import com.wtu.vo.PostVO;
 
 /**
@@ -22,10 +23,11 @@ public interface PostService {
     /**
      * 获取帖子详情
      *
-     * @param postId 帖子ID
+     * @param postId   帖子ID
+     * @param clientIp 客户端IP，未登录时用于浏览去重
      * @return 帖子详情
      */
-    PostVO getPostById(Long postId);
+    PostVO getPostById(Long postId, String clientIp);
 
     /**
      * 更新帖子
@@ -41,5 +43,42 @@ public interface PostService {
      * @param postId 帖子ID
      */
     void deletePost(Long postId);
-}
 
+    /**
+     * 最新帖子信息流（置顶优先，再按发布时间倒序），游标分页
+     *
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size   每页数量
+     * @return 帖子卡片分页结果
+     */
+    PostFeedVO listLatestPosts(String cursor, Integer size);
+
+    /**
+     * 按标签查询帖子信息流，游标分页
+     *
+     * @param tagId  标签ID
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size   每页数量
+     * @return 帖子卡片分页结果
+     */
+    PostFeedVO listPostsByTag(Long tagId, String cursor, Integer size);
+
+    /**
+     * 查询某个用户发布的帖子信息流，游标分页
+     *
+     * @param userId 发帖用户ID
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size   每页数量
+     * @return 帖子卡片分页结果
+     */
+    PostFeedVO listPostsByAuthor(Long userId, String cursor, Integer size);
+
+    /**
+     * 热门帖子信息流，按时间衰减的热度从高到低，游标为排行中的偏移量
+     *
+     * @param cursor 上一页返回的游标，首页传null
+     * @param size   每页数量
+     * @return 帖子卡片分页结果
+     */
+    PostFeedVO listHotPosts(String cursor, Integer size);
+}
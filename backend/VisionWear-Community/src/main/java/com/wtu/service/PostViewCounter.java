@@ -0,0 +1,34 @@
+package com.wtu.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 帖子浏览量计数
+ * 浏览先累加到Redis，由定时任务批量写回MySQL，读取时叠加尚未写回的增量
+ *
+ * @author WTU
+ */
+public interface PostViewCounter {
+
+    /**
+     * 记录一次浏览
+     *
+     * @param postId 帖子ID
+     * @return 该帖子尚未写回MySQL的浏览增量（含本次）
+     */
+    long increment(Long postId);
+
+    /**
+     * 批量查询尚未写回MySQL的浏览增量
+     *
+     * @param postIds 帖子ID列表
+     * @return 帖子ID -> 增量，没有增量的帖子不在结果中
+     */
+    Map<Long, Long> getPending(Collection<Long> postIds);
+
+    /**
+     * 把累积的浏览增量批量写回MySQL，由定时器调用
+     */
+    void flush();
+}
@@ -0,0 +1,33 @@
+package com.wtu.service.impl;
+
+import com.wtu.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 信息流游标：上一页最后一条的 (is_top, create_time, post_id)，对外编码为不透明字符串
+ *
+ * @author WTU
+ */
+record FeedCursor(Integer isTop, LocalDateTime createTime, Long postId) {
+
+    String encode() {
+        String raw = isTop + "|" + createTime + "|" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new FeedCursor(Integer.valueOf(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (Exception e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+}
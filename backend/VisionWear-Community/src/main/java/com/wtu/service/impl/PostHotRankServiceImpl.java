@@ -0,0 +1,165 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.wtu.entity.Post;
+import com.wtu.mapper.PostMapper;
+import com.wtu.properties.PostHotProperties;
+import com.wtu.service.PostHotRankService;
+import com.wtu.utils.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门帖子排行实现
+ * 热度 = ln(Σ 权重 × 2^((互动时间 - 基准时间) / 半衰期))。
+ * 所有帖子随时间按同一比例衰减，不改变相对顺序，所以只需把每次互动按其发生时间放大后累加，
+ * 比较时就等价于按当前时刻衰减后的热度排序。分数取对数保存，累加用 log-sum-exp 在Lua中原子完成
+ *
+ * @author WTU
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostHotRankServiceImpl implements PostHotRankService {
+
+    private static final String RANK_KEY = "community:post:hot";
+    private static final String REFRESH_LOCK_KEY = "community:post:hot:refresh-lock";
+    // 浏览去重标记：帖子ID:浏览者 -> 1，过期后同一浏览者再次浏览重新计入
+    private static final String VIEWED_KEY = "community:post:hot:viewed:";
+
+    // 热度基准时间，修改后已有分数失效，需要清空排行榜
+    private static final long EPOCH_MILLIS = LocalDateTime.of(2024, 1, 1, 0, 0)
+            .atZone(ZoneId.of("Asia/Shanghai")).toInstant().toEpochMilli();
+
+    // score = max + ln(1 + e^(min - max))，即 ln(e^旧分 + e^增量)，避免直接求指数溢出
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "local add = tonumber(ARGV[2]) " +
+            "local current = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+            "local score = add " +
+            "if current then " +
+            "  local c = tonumber(current) " +
+            "  local hi = math.max(c, add) " +
+            "  local lo = math.min(c, add) " +
+            "  score = hi + math.log(1 + math.exp(lo - hi)) " +
+            "end " +
+            "redis.call('ZADD', KEYS[1], score, ARGV[1]) " +
+            "return 1", Long.class);
+
+    private final RedisUtil redisUtil;
+    private final PostMapper postMapper;
+    private final PostHotProperties hotProperties;
+
+    @Override
+    public void recordView(Long postId, String viewer) {
+        if (postId == null || viewer == null) {
+            return;
+        }
+        // 反复刷新同一帖子不能刷高热度，窗口内只有第一次浏览计分
+        try {
+            Boolean first = redisUtil.setIfAbsent(VIEWED_KEY + postId + ":" + viewer, 1,
+                    hotProperties.getViewDedupWindow(), TimeUnit.MILLISECONDS);
+            if (!Boolean.TRUE.equals(first)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("帖子 {} 浏览去重失败: {}", postId, e.getMessage());
+            return;
+        }
+        record(postId, hotProperties.getViewWeight());
+    }
+
+    @Override
+    public void recordLike(Long postId) {
+        record(postId, hotProperties.getLikeWeight());
+    }
+
+    @Override
+    public void recordCollect(Long postId) {
+        record(postId, hotProperties.getCollectWeight());
+    }
+
+    @Override
+    public void recordComment(Long postId) {
+        record(postId, hotProperties.getCommentWeight());
+    }
+
+    /**
+     * 累加一次互动；排行只影响展示，失败时不影响业务操作
+     */
+    private void record(Long postId, double weight) {
+        if (postId == null || weight <= 0) {
+            return;
+        }
+        double halfLifeMillis = hotProperties.getHalfLifeHours() * 3600_000D;
+        double increment = Math.log(weight)
+                + (System.currentTimeMillis() - EPOCH_MILLIS) / halfLifeMillis * Math.log(2);
+        try {
+            redisUtil.execute(ADD_SCRIPT, List.of(RANK_KEY), postId, increment);
+        } catch (Exception e) {
+            log.warn("更新帖子 {} 热度失败: {}", postId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        try {
+            redisUtil.zRemove(RANK_KEY, postId);
+        } catch (Exception e) {
+            log.warn("帖子 {} 移出热门排行失败: {}", postId, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Long> getHotPostIds(long offset, int count) {
+        Set<Object> members = redisUtil.zReverseRange(RANK_KEY, offset, offset + count - 1);
+        List<Long> postIds = new ArrayList<>(members == null ? 0 : members.size());
+        if (members != null) {
+            for (Object member : members) {
+                postIds.add(((Number) member).longValue());
+            }
+        }
+        return postIds;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.community.hot.refresh-interval:60000}")
+    public void refreshHotPosts() {
+        String token = redisUtil.tryLock(REFRESH_LOCK_KEY, hotProperties.getLockTimeout(), TimeUnit.MILLISECONDS);
+        if (token == null) {
+            return;
+        }
+        try {
+            // 只保留热度最高的 maxSize 个帖子，尾部的帖子再有互动时会重新进入排行
+            redisUtil.zRemoveRange(RANK_KEY, 0, -(long) hotProperties.getMaxSize() - 1);
+
+            List<Long> top = getHotPostIds(0, hotProperties.getTopK());
+            int cleared = postMapper.update(null, new LambdaUpdateWrapper<Post>()
+                    .set(Post::getIsHot, 0)
+                    .eq(Post::getIsHot, 1)
+                    .notIn(!top.isEmpty(), Post::getPostId, top));
+            int marked = top.isEmpty() ? 0 : postMapper.update(null, new LambdaUpdateWrapper<Post>()
+                    .set(Post::getIsHot, 1)
+                    .eq(Post::getIsHot, 0)
+                    .eq(Post::getStatus, 0)
+                    .in(Post::getPostId, top));
+            if (cleared > 0 || marked > 0) {
+                log.info("刷新热门帖子：新增 {} 个，取消 {} 个", marked, cleared);
+            }
+        } catch (Exception e) {
+            log.error("刷新热门帖子失败", e);
+        } finally {
+            redisUtil.unlock(REFRESH_LOCK_KEY, token);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wtu.entity.*;
+import com.wtu.mapper.*;
+import com.wtu.service.PostHydrator;
+import com.wtu.service.PostInteractionService;
+import com.wtu.service.PostInteractionService.InteractionState;
+import com.wtu.vo.PostCardVO;
+import com.wtu.vo.PostVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 帖子批量组装实现
+ * 固定3次查询：图片、帖子标签关联、标签；点赞/收藏状态与计数由Redis一次管道往返取得
+ * 卡片不需要图片列表，少一次查询
+ *
+ * @author WTU
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostHydratorImpl implements PostHydrator {
+
+    private final PostImageMapper postImageMapper;
+    private final PostTagMapper postTagMapper;
+    private final TagMapper tagMapper;
+    private final PostInteractionService postInteractionService;
+
+    @Override
+    public List<PostVO> hydrate(List<Post> posts, Long currentUserId) {
+        if (posts == null || posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Relations relations = loadRelations(posts, currentUserId);
+
+        List<List<String>> images = emptyLists(posts.size());
+        for (PostImage image : postImageMapper.selectList(new LambdaQueryWrapper<PostImage>()
+                .select(PostImage::getPostId, PostImage::getImageUrl)
+                .in(PostImage::getPostId, relations.postIds())
+                .orderByAsc(PostImage::getPostId, PostImage::getSortOrder))) {
+            images.get(relations.slots().get(image.getPostId())).add(image.getImageUrl());
+        }
+
+        List<PostVO> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            // 输入中重复的帖子共用第一次出现位置的数据
+            int slot = relations.slots().get(post.getPostId());
+            PostVO vo = new PostVO();
+            BeanUtils.copyProperties(post, vo);
+            vo.setImages(images.get(slot));
+            vo.setTags(relations.tags().get(slot));
+            InteractionState state = relations.interactions().get(post.getPostId());
+            vo.setIsLiked(state != null && state.liked());
+            vo.setIsCollected(state != null && state.collected());
+            if (state != null) {
+                vo.setLikeCount(state.likeCount());
+                vo.setCollectCount(state.collectCount());
+            }
+
+            // TODO: 通过 Feign 调用 User 模块批量获取用户信息
+            vo.setUserName(null);
+            vo.setNickName(null);
+            vo.setAvatar(null);
+            result.add(vo);
+        }
+        return result;
+    }
+
+    @Override
+    public List<PostCardVO> hydrateCards(List<Post> posts, Long currentUserId) {
+        if (posts == null || posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Relations relations = loadRelations(posts, currentUserId);
+
+        List<PostCardVO> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            int slot = relations.slots().get(post.getPostId());
+            PostCardVO card = new PostCardVO();
+            BeanUtils.copyProperties(post, card);
+            card.setTags(relations.tags().get(slot));
+            InteractionState state = relations.interactions().get(post.getPostId());
+            card.setIsLiked(state != null && state.liked());
+            card.setIsCollected(state != null && state.collected());
+            if (state != null) {
+                card.setLikeCount(state.likeCount());
+                card.setCollectCount(state.collectCount());
+            }
+
+            // TODO: 通过 Feign 调用 User 模块批量获取用户信息
+            card.setUserName(null);
+            card.setNickName(null);
+            card.setAvatar(null);
+            result.add(card);
+        }
+        return result;
+    }
+
+    /**
+     * 批量加载详情和卡片共有的关联数据：标签、点赞与收藏状态
+     */
+    private Relations loadRelations(List<Post> posts, Long currentUserId) {
+        // 帖子ID -> 在结果中的下标，后续按下标分组，不再为每个帖子建集合映射
+        Map<Long, Integer> slots = new HashMap<>(posts.size() * 2);
+        for (int i = 0; i < posts.size(); i++) {
+            slots.putIfAbsent(posts.get(i).getPostId(), i);
+        }
+        List<Long> postIds = new ArrayList<>(slots.keySet());
+
+        List<List<Tag>> tags = emptyLists(posts.size());
+        List<PostTag> postTags = postTagMapper.selectList(new LambdaQueryWrapper<PostTag>()
+                .select(PostTag::getPostId, PostTag::getTagId)
+                .in(PostTag::getPostId, postIds));
+        if (!postTags.isEmpty()) {
+            Set<Long> tagIds = new HashSet<>();
+            for (PostTag postTag : postTags) {
+                tagIds.add(postTag.getTagId());
+            }
+            Map<Long, Tag> tagById = new HashMap<>(tagIds.size() * 2);
+            for (Tag tag : tagMapper.selectBatchIds(tagIds)) {
+                tagById.put(tag.getTagId(), tag);
+            }
+            for (PostTag postTag : postTags) {
+                Tag tag = tagById.get(postTag.getTagId());
+                if (tag != null) {
+                    tags.get(slots.get(postTag.getPostId())).add(tag);
+                }
+            }
+        }
+
+        Map<Long, InteractionState> interactions;
+        try {
+            interactions = postInteractionService.getStates(postIds, currentUserId);
+        } catch (Exception e) {
+            // Redis不可用时退化为MySQL中的计数，点赞/收藏状态显示为未操作
+            log.warn("查询帖子点赞/收藏状态失败: {}", e.getMessage());
+            interactions = Collections.emptyMap();
+        }
+        return new Relations(slots, postIds, tags, interactions);
+    }
+
+    private record Relations(Map<Long, Integer> slots, List<Long> postIds, List<List<Tag>> tags,
+                             Map<Long, InteractionState> interactions) {
+    }
+
+    private static <T> List<List<T>> emptyLists(int size) {
+        List<List<T>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+}
@@ -0,0 +1,450 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.wtu.entity.CollectRecord;
+import com.wtu.entity.LikeRecord;
+import com.wtu.entity.Post;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.mapper.CollectRecordMapper;
+import com.wtu.mapper.LikeRecordMapper;
+import com.wtu.mapper.PostMapper;
+import com.wtu.properties.PostInteractionProperties;
+import com.wtu.service.PostHotRankService;
+import com.wtu.service.PostInteractionService;
+import com.wtu.utils.RedisUtil;
+import com.wtu.utils.UserContext;
+import com.wtu.vo.PostInteractionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帖子点赞/收藏服务实现
+ * 每个帖子的点赞用户、收藏用户各存一个Redis Set，集合大小即计数。
+ * 集合在首次访问时从MySQL加载，并放入一个占位成员，用来区分“没有人点赞”和“尚未加载”。
+ * 变更与待持久化事件在同一个Lua脚本中写入，事件由定时任务按批合并后写入MySQL
+ *
+ * @author WTU
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostInteractionServiceImpl implements PostInteractionService {
+
+    private static final String OUTBOX_KEY = "community:post:interaction:outbox";
+    private static final String OUTBOX_LOCK_KEY = "community:post:interaction:outbox-lock";
+
+    // 已加载集合中的占位成员，不计入点赞/收藏数
+    private static final Long LOADED_MARKER = -1L;
+
+    // 集合未加载时返回-1；成员确有变化时才写入待持久化事件
+    private static final RedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "local changed " +
+            "if ARGV[2] == '1' then changed = redis.call('SADD', KEYS[1], ARGV[1]) " +
+            "else changed = redis.call('SREM', KEYS[1], ARGV[1]) end " +
+            "if changed == 1 then redis.call('RPUSH', KEYS[2], ARGV[3]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "return changed", Long.class);
+
+    // 一次加载多个集合，每个集合的参数为 成员数, 成员...；只有集合不存在时才写入，避免并发加载用旧数据覆盖已经发生的变更
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "local i = 2 " +
+            "local loaded = 0 " +
+            "for k = 1, #KEYS do " +
+            "  local n = tonumber(ARGV[i]) " +
+            "  if redis.call('EXISTS', KEYS[k]) == 0 then " +
+            "    for j = i + 1, i + n do redis.call('SADD', KEYS[k], ARGV[j]) end " +
+            "    redis.call('EXPIRE', KEYS[k], ARGV[1]) " +
+            "    loaded = loaded + 1 " +
+            "  end " +
+            "  i = i + n + 1 " +
+            "end " +
+            "return loaded", Long.class);
+
+    // 仍持有写回锁时才出队；锁已过期说明别的实例可能已经处理并出队了同一批，再出队会丢掉未处理的事件
+    private static final RedisScript<Long> TRIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "redis.call('LTRIM', KEYS[2], ARGV[2], -1) " +
+            "return 1", Long.class);
+
+    private final RedisUtil redisUtil;
+    private final PostMapper postMapper;
+    private final LikeRecordMapper likeRecordMapper;
+    private final CollectRecordMapper collectRecordMapper;
+    private final PostInteractionProperties interactionProperties;
+    private final PostHotRankService postHotRankService;
+    private final TransactionTemplate transactionTemplate;
+
+    enum Kind {
+        LIKE("L", "community:post:like:"),
+        COLLECT("C", "community:post:collect:");
+
+        private final String code;
+        private final String keyPrefix;
+
+        Kind(String code, String keyPrefix) {
+            this.code = code;
+            this.keyPrefix = keyPrefix;
+        }
+
+        String key(Long postId) {
+            return keyPrefix + postId;
+        }
+
+        static Kind of(String code) {
+            return LIKE.code.equals(code) ? LIKE : COLLECT.code.equals(code) ? COLLECT : null;
+        }
+    }
+
+    /**
+     * 待持久化事件，队列中编码为 类型|1加入0移除|帖子ID|用户ID|毫秒时间戳
+     */
+    record Event(Kind kind, boolean add, Long postId, Long userId, long time) {
+
+        String encode() {
+            return kind.code + "|" + (add ? 1 : 0) + "|" + postId + "|" + userId + "|" + time;
+        }
+
+        static Event parse(Object raw) {
+            String[] parts = raw.toString().split("\\|");
+            Kind kind = parts.length == 5 ? Kind.of(parts[0]) : null;
+            if (kind == null) {
+                return null;
+            }
+            return new Event(kind, "1".equals(parts[1]), Long.valueOf(parts[2]),
+                    Long.valueOf(parts[3]), Long.parseLong(parts[4]));
+        }
+
+        LocalDateTime createTime() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        }
+    }
+
+    @Override
+    public PostInteractionVO like(Long postId) {
+        return toggle(Kind.LIKE, postId, true);
+    }
+
+    @Override
+    public PostInteractionVO unlike(Long postId) {
+        return toggle(Kind.LIKE, postId, false);
+    }
+
+    @Override
+    public PostInteractionVO collect(Long postId) {
+        return toggle(Kind.COLLECT, postId, true);
+    }
+
+    @Override
+    public PostInteractionVO uncollect(Long postId) {
+        return toggle(Kind.COLLECT, postId, false);
+    }
+
+    private PostInteractionVO toggle(Kind kind, Long postId, boolean add) {
+        ExceptionUtils.requireNonNull(postId, "帖子ID不能为空");
+        Long userId = UserContext.getCurrentUserId();
+        if (userId == null) {
+            throw new BusinessException("请先登录");
+        }
+
+        Event event = new Event(kind, add, postId, userId, System.currentTimeMillis());
+        Long changed = runToggle(event);
+        if (changed == null || changed < 0) {
+            // 成员集合未加载（首次访问、已过期或帖子删除时已清除），确认帖子有效后从MySQL加载再重试
+            Post post = postMapper.selectById(postId);
+            if (post == null || post.getStatus() != 0) {
+                throw new BusinessException("帖子不存在");
+            }
+            load(kind, List.of(postId));
+            changed = runToggle(event);
+            if (changed == null || changed < 0) {
+                throw new BusinessException("操作失败，请稍后重试");
+            }
+        }
+        // 只有新增的点赞/收藏计入热度，取消不扣减
+        if (add && changed == 1) {
+            if (kind == Kind.LIKE) {
+                postHotRankService.recordLike(postId);
+            } else {
+                postHotRankService.recordCollect(postId);
+            }
+        }
+
+        InteractionState state = getStates(List.of(postId), userId).get(postId);
+        return PostInteractionVO.builder()
+                .postId(postId)
+                .likeCount(state.likeCount())
+                .collectCount(state.collectCount())
+                .isLiked(state.liked())
+                .isCollected(state.collected())
+                .build();
+    }
+
+    private Long runToggle(Event event) {
+        return redisUtil.execute(TOGGLE_SCRIPT,
+                List.of(event.kind().key(event.postId()), OUTBOX_KEY),
+                event.userId(), event.add() ? 1 : 0, event.encode(), interactionProperties.getMemberTtl());
+    }
+
+    @Override
+    public Map<Long, InteractionState> getStates(Collection<Long> postIds, Long userId) {
+        Map<Long, InteractionState> states = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return states;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+
+        Map<Kind, List<Long>> unloaded = readStates(ids, userId, states);
+        if (!unloaded.isEmpty()) {
+            // 冷数据只在第一次访问时多一轮：批量从MySQL加载后再读一次
+            unloaded.forEach(this::load);
+            Set<Long> retry = new LinkedHashSet<>();
+            unloaded.values().forEach(retry::addAll);
+            readStates(new ArrayList<>(retry), userId, states);
+        }
+        return states;
+    }
+
+    /**
+     * 管道读取每个帖子的 EXISTS / SCARD / SISMEMBER，一次往返；返回尚未加载的帖子
+     */
+    private Map<Kind, List<Long>> readStates(List<Long> ids, Long userId, Map<Long, InteractionState> states) {
+        Kind[] kinds = Kind.values();
+        List<Object> results = redisUtil.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Long postId : ids) {
+                    for (Kind kind : kinds) {
+                        String key = kind.key(postId);
+                        ops.hasKey(key);
+                        ops.opsForSet().size(key);
+                        if (userId != null) {
+                            ops.opsForSet().isMember(key, userId);
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+
+        int stride = userId != null ? 3 : 2;
+        Map<Kind, List<Long>> unloaded = new EnumMap<>(Kind.class);
+        int index = 0;
+        for (Long postId : ids) {
+            boolean[] member = new boolean[kinds.length];
+            int[] count = new int[kinds.length];
+            boolean loaded = true;
+            for (Kind kind : kinds) {
+                int offset = index + kind.ordinal() * stride;
+                if (!Boolean.TRUE.equals(results.get(offset))) {
+                    unloaded.computeIfAbsent(kind, k -> new ArrayList<>()).add(postId);
+                    loaded = false;
+                    continue;
+                }
+                count[kind.ordinal()] = (int) Math.max(((Number) results.get(offset + 1)).longValue() - 1, 0);
+                member[kind.ordinal()] = userId != null && Boolean.TRUE.equals(results.get(offset + 2));
+            }
+            index += kinds.length * stride;
+            if (loaded) {
+                states.put(postId, new InteractionState(member[Kind.LIKE.ordinal()], member[Kind.COLLECT.ordinal()],
+                        count[Kind.LIKE.ordinal()], count[Kind.COLLECT.ordinal()]));
+            }
+        }
+        return unloaded;
+    }
+
+    /**
+     * 从MySQL批量加载一组帖子的成员集合
+     */
+    private void load(Kind kind, List<Long> postIds) {
+        Map<Long, List<Object>> members = new HashMap<>(postIds.size() * 2);
+        for (Long postId : postIds) {
+            List<Object> list = new ArrayList<>();
+            list.add(LOADED_MARKER);
+            members.put(postId, list);
+        }
+        if (kind == Kind.LIKE) {
+            for (LikeRecord record : likeRecordMapper.selectList(new LambdaQueryWrapper<LikeRecord>()
+                    .select(LikeRecord::getTargetId, LikeRecord::getUserId)
+                    .eq(LikeRecord::getTargetType, 1)  // 1-帖子
+                    .in(LikeRecord::getTargetId, postIds))) {
+                members.get(record.getTargetId()).add(record.getUserId());
+            }
+        } else {
+            for (CollectRecord record : collectRecordMapper.selectList(new LambdaQueryWrapper<CollectRecord>()
+                    .select(CollectRecord::getPostId, CollectRecord::getUserId)
+                    .in(CollectRecord::getPostId, postIds))) {
+                members.get(record.getPostId()).add(record.getUserId());
+            }
+        }
+
+        // 同一类型的所有集合在一个脚本里写入，一次往返
+        List<String> keys = new ArrayList<>(members.size());
+        List<Object> args = new ArrayList<>();
+        args.add(interactionProperties.getMemberTtl());
+        for (Map.Entry<Long, List<Object>> entry : members.entrySet()) {
+            keys.add(kind.key(entry.getKey()));
+            args.add(entry.getValue().size());
+            args.addAll(entry.getValue());
+        }
+        redisUtil.execute(LOAD_SCRIPT, keys, args.toArray());
+    }
+
+    @Override
+    public void evict(Long postId) {
+        redisUtil.delete(List.of(Kind.LIKE.key(postId), Kind.COLLECT.key(postId)));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.community.interaction.flush-interval:1000}")
+    public void flushOutbox() {
+        String token = redisUtil.tryLock(OUTBOX_LOCK_KEY, interactionProperties.getLockTimeout(), TimeUnit.MILLISECONDS);
+        if (token == null) {
+            return;
+        }
+        try {
+            int batchSize = interactionProperties.getBatchSize();
+            // 每轮最多用锁过期时间的一半，剩下的留到下一轮，保证出队时锁还没过期
+            long deadline = System.currentTimeMillis() + interactionProperties.getLockTimeout() / 2;
+            while (System.currentTimeMillis() < deadline) {
+                List<Object> batch = redisUtil.lRange(OUTBOX_KEY, 0, batchSize - 1);
+                if (batch == null || batch.isEmpty()) {
+                    return;
+                }
+                transactionTemplate.executeWithoutResult(status -> persist(batch));
+                // 写库成功后才出队；出队前进程退出时这一批会重放，记录幂等，计数会重复累加一次
+                Long trimmed = redisUtil.execute(TRIM_SCRIPT, List.of(OUTBOX_LOCK_KEY, OUTBOX_KEY), token, batch.size());
+                if (trimmed == null || trimmed == 0) {
+                    log.warn("点赞/收藏写回锁已过期，本批{}条事件不出队，留给持有锁的实例处理", batch.size());
+                    return;
+                }
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("点赞/收藏事件写入MySQL失败，下一轮重试", e);
+        } finally {
+            redisUtil.unlock(OUTBOX_LOCK_KEY, token);
+        }
+    }
+
+    /**
+     * 一批事件合并后的结果：每个 (类型, 帖子, 用户) 的最后一次操作，以及每个帖子的计数净变化
+     */
+    record MergedEvents(Collection<Event> latest, Map<Long, Long> likeDeltas, Map<Long, Long> collectDeltas) {
+    }
+
+    /**
+     * 合并一批事件：同一用户对同一帖子只按最后一次操作落库，计数按每次变更累加，净变化为0的帖子不更新
+     */
+    static MergedEvents merge(List<Object> batch) {
+        Map<String, Event> latest = new LinkedHashMap<>();
+        Map<Long, Long> likeDeltas = new HashMap<>();
+        Map<Long, Long> collectDeltas = new HashMap<>();
+        for (Object raw : batch) {
+            Event event = Event.parse(raw);
+            if (event == null) {
+                log.warn("忽略无法解析的点赞/收藏事件: {}", raw);
+                continue;
+            }
+            (event.kind() == Kind.LIKE ? likeDeltas : collectDeltas)
+                    .merge(event.postId(), event.add() ? 1L : -1L, Long::sum);
+            latest.put(event.kind().code + "|" + event.postId() + "|" + event.userId(), event);
+        }
+        likeDeltas.values().removeIf(delta -> delta == 0);
+        collectDeltas.values().removeIf(delta -> delta == 0);
+        return new MergedEvents(latest.values(), likeDeltas, collectDeltas);
+    }
+
+    private void persist(List<Object> batch) {
+        MergedEvents merged = merge(batch);
+
+        List<LikeRecord> likeInserts = new ArrayList<>();
+        List<Event> likeDeletes = new ArrayList<>();
+        List<CollectRecord> collectInserts = new ArrayList<>();
+        List<Event> collectDeletes = new ArrayList<>();
+        for (Event event : merged.latest()) {
+            if (event.kind() == Kind.LIKE) {
+                if (event.add()) {
+                    likeInserts.add(LikeRecord.builder()
+                            .userId(event.userId())
+                            .targetId(event.postId())
+                            .targetType(1)  // 1-帖子
+                            .createTime(event.createTime())
+                            .build());
+                } else {
+                    likeDeletes.add(event);
+                }
+            } else {
+                if (event.add()) {
+                    collectInserts.add(CollectRecord.builder()
+                            .userId(event.userId())
+                            .postId(event.postId())
+                            .folderId(null)  // 默认收藏夹
+                            .createTime(event.createTime())
+                            .build());
+                } else {
+                    collectDeletes.add(event);
+                }
+            }
+        }
+
+        if (!likeInserts.isEmpty()) {
+            likeRecordMapper.insertIgnoreBatch(likeInserts);
+        }
+        if (!likeDeletes.isEmpty()) {
+            likeRecordMapper.delete(new LambdaQueryWrapper<LikeRecord>()
+                    .eq(LikeRecord::getTargetType, 1)
+                    .and(w -> {
+                        for (int i = 0; i < likeDeletes.size(); i++) {
+                            Event event = likeDeletes.get(i);
+                            if (i > 0) {
+                                w.or();
+                            }
+                            w.nested(o -> o.eq(LikeRecord::getUserId, event.userId())
+                                    .eq(LikeRecord::getTargetId, event.postId()));
+                        }
+                    }));
+        }
+        if (!collectInserts.isEmpty()) {
+            collectRecordMapper.insertIgnoreBatch(collectInserts);
+        }
+        if (!collectDeletes.isEmpty()) {
+            collectRecordMapper.delete(new LambdaQueryWrapper<CollectRecord>()
+                    .and(w -> {
+                        for (int i = 0; i < collectDeletes.size(); i++) {
+                            Event event = collectDeletes.get(i);
+                            if (i > 0) {
+                                w.or();
+                            }
+                            w.nested(o -> o.eq(CollectRecord::getUserId, event.userId())
+                                    .eq(CollectRecord::getPostId, event.postId()));
+                        }
+                    }));
+        }
+
+        if (!merged.likeDeltas().isEmpty()) {
+            postMapper.incrementLikeCounts(merged.likeDeltas());
+        }
+        if (!merged.collectDeltas().isEmpty()) {
+            postMapper.incrementCollectCounts(merged.collectDeltas());
+        }
+    }
+}
@@ -1,24 +1,31 @@
 package com.wtu.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.wtu.dto.PostCreateDTO;
 import com.wtu.dto.PostUpdateDTO;
 import com.wtu.entity.*;
 import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
 import com.wtu.mapper.*;
+import com.wtu.service.PostHotRankService;
+import com.wtu.service.PostInteractionService;
+import com.wtu.service.PostHydrator;
 import com.wtu.service.PostService;
+import com.wtu.service.PostViewCounter;
 import com.wtu.utils.UserContext;
+import com.wtu.vo.PostCardVO;
+import com.wtu.vo.PostFeedVO;
 import com.wtu.vo.PostVO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -35,8 +42,14 @@ public class PostServiceImpl implements PostService {
     private final PostImageMapper postImageMapper;
     private final PostTagMapper postTagMapper;
     private final TagMapper tagMapper;
-    private final LikeRecordMapper likeRecordMapper;
-    private final CollectRecordMapper collectRecordMapper;
+    private final PostHydrator postHydrator;
+    private final PostViewCounter postViewCounter;
+    private final PostHotRankService postHotRankService;
+    private final PostInteractionService postInteractionService;
+
+    // 信息流默认与最大每页数量
+    private static final int FEED_DEFAULT_SIZE = 20;
+    private static final int FEED_MAX_SIZE = 50;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -82,14 +95,14 @@ public class PostServiceImpl implements PostService {
 
         // 5. 保存帖子标签（如果有）
         if (!CollectionUtils.isEmpty(dto.getTagIds())) {
-            savePostTags(postId, dto.getTagIds());
+            savePostTags(post, dto.getTagIds());
         }
 
         return postId;
     }
 
     @Override
-    public PostVO getPostById(Long postId) {
+    public PostVO getPostById(Long postId, String clientIp) {
         // 1. 查询帖子基本信息
         Post post = postMapper.selectById(postId);
         if (post == null) {
@@ -101,12 +114,20 @@ public class PostServiceImpl implements PostService {
             throw new BusinessException("帖子已删除");
         }
 
-        // 3. 增加浏览量
-        post.setViewCount(post.getViewCount() + 1);
-        postMapper.updateById(post);
-
-        // 4. 转换为VO
-        PostVO vo = convertToVO(post);
+        // 3. 转换为VO
+        Long currentUserId = UserContext.getCurrentUserId();
+        PostVO vo = postHydrator.hydrate(List.of(post), currentUserId).get(0);
+
+        // 4. 增加浏览量：只累加到Redis，由定时任务批量写回，返回值叠加尚未写回的增量
+        try {
+            long pending = postViewCounter.increment(postId);
+            vo.setViewCount((int) (post.getViewCount() + pending));
+        } catch (Exception e) {
+            log.warn("记录帖子 {} 浏览量失败: {}", postId, e.getMessage());
+        }
+        // 热度按浏览者去重，登录用户按用户ID，未登录按IP
+        String viewer = currentUserId != null ? "u" + currentUserId : clientIp != null ? "ip" + clientIp : null;
+        postHotRankService.recordView(postId, viewer);
 
         log.info("获取帖子详情成功，帖子ID: {}", postId);
         return vo;
@@ -179,7 +200,7 @@ public class PostServiceImpl implements PostService {
             );
             // 保存新标签
             if (!dto.getTagIds().isEmpty()) {
-                savePostTags(postId, dto.getTagIds());
+                savePostTags(post, dto.getTagIds());
             }
         }
 
@@ -213,10 +234,191 @@ public class PostServiceImpl implements PostService {
         if (result <= 0) {
             throw new BusinessException("删除帖子失败");
         }
+        // 同步标签关联上的冗余状态，使其退出标签信息流
+        postTagMapper.update(null, new LambdaUpdateWrapper<PostTag>()
+                .set(PostTag::getPostStatus, 1)
+                .eq(PostTag::getPostId, postId));
+        postHotRankService.remove(postId);
+        // 清除点赞/收藏集合，已删除的帖子不能再通过缓存中的集合点赞或收藏
+        postInteractionService.evict(postId);
 
         log.info("用户 {} 删除帖子成功，帖子ID: {}", currentUserId, postId);
     }
 
+    @Override
+    public PostFeedVO listLatestPosts(String cursor, Integer size) {
+        return listPosts(null, cursor, size);
+    }
+
+    @Override
+    public PostFeedVO listPostsByAuthor(Long userId, String cursor, Integer size) {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        return listPosts(userId, cursor, size);
+    }
+
+    @Override
+    public PostFeedVO listPostsByTag(Long tagId, String cursor, Integer size) {
+        ExceptionUtils.requireNonNull(tagId, "标签ID不能为空");
+        int pageSize = normalizeSize(size);
+        FeedCursor after = FeedCursor.decode(cursor);
+
+        // 先在 post_tag 的 (tag_id, post_status, post_is_top, post_create_time, post_id) 索引上定位一页帖子ID
+        LambdaQueryWrapper<PostTag> wrapper = new LambdaQueryWrapper<PostTag>()
+                .select(PostTag::getPostId, PostTag::getPostIsTop, PostTag::getPostCreateTime)
+                .eq(PostTag::getTagId, tagId)
+                .eq(PostTag::getPostStatus, 0);
+        if (after != null) {
+            wrapper.and(w -> w.lt(PostTag::getPostIsTop, after.isTop())
+                    .or(o -> o.eq(PostTag::getPostIsTop, after.isTop())
+                            .lt(PostTag::getPostCreateTime, after.createTime()))
+                    .or(o -> o.eq(PostTag::getPostIsTop, after.isTop())
+                            .eq(PostTag::getPostCreateTime, after.createTime())
+                            .lt(PostTag::getPostId, after.postId())));
+        }
+        wrapper.orderByDesc(PostTag::getPostIsTop, PostTag::getPostCreateTime, PostTag::getPostId)
+                .last("LIMIT " + (pageSize + 1));
+        List<PostTag> refs = postTagMapper.selectList(wrapper);
+
+        boolean hasMore = refs.size() > pageSize;
+        if (hasMore) {
+            refs = refs.subList(0, pageSize);
+        }
+        if (refs.isEmpty()) {
+            return PostFeedVO.builder().posts(new ArrayList<>()).hasMore(false).build();
+        }
+
+        // 再按主键取卡片字段，保持索引给出的顺序
+        List<Long> postIds = refs.stream().map(PostTag::getPostId).collect(Collectors.toList());
+        Map<Long, Post> postById = postMapper.selectList(cardQuery().in(Post::getPostId, postIds)).stream()
+                .collect(Collectors.toMap(Post::getPostId, Function.identity()));
+        List<Post> posts = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            Post post = postById.get(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+
+        PostTag last = refs.get(refs.size() - 1);
+        String nextCursor = hasMore
+                ? new FeedCursor(last.getPostIsTop(), last.getPostCreateTime(), last.getPostId()).encode()
+                : null;
+        return buildFeed(posts, nextCursor);
+    }
+
+    @Override
+    public PostFeedVO listHotPosts(String cursor, Integer size) {
+        int pageSize = normalizeSize(size);
+        long offset = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                offset = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new BusinessException("分页游标无效");
+            }
+            if (offset < 0) {
+                throw new BusinessException("分页游标无效");
+            }
+        }
+
+        // 排行直接来自Redis有序集合，多取一个判断是否还有下一页
+        List<Long> postIds = postHotRankService.getHotPostIds(offset, pageSize + 1);
+        boolean hasMore = postIds.size() > pageSize;
+        if (hasMore) {
+            postIds = postIds.subList(0, pageSize);
+        }
+        if (postIds.isEmpty()) {
+            return PostFeedVO.builder().posts(new ArrayList<>()).hasMore(false).build();
+        }
+
+        Map<Long, Post> postById = postMapper.selectList(cardQuery()
+                        .in(Post::getPostId, postIds)
+                        .eq(Post::getStatus, 0)).stream()
+                .collect(Collectors.toMap(Post::getPostId, Function.identity()));
+        List<Post> posts = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            Post post = postById.get(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return buildFeed(posts, hasMore ? String.valueOf(offset + pageSize) : null);
+    }
+
+    /**
+     * 最新信息流与作者信息流共用的键集分页查询
+     * 条件 (is_top, create_time, post_id) < 游标 展开成 OR 形式，可以直接在索引上做范围扫描，深翻页不再扫描前面的行
+     */
+    private PostFeedVO listPosts(Long authorId, String cursor, Integer size) {
+        int pageSize = normalizeSize(size);
+        FeedCursor after = FeedCursor.decode(cursor);
+
+        LambdaQueryWrapper<Post> wrapper = cardQuery()
+                .eq(authorId != null, Post::getUserId, authorId)
+                .eq(Post::getStatus, 0);
+        if (after != null) {
+            wrapper.and(w -> w.lt(Post::getIsTop, after.isTop())
+                    .or(o -> o.eq(Post::getIsTop, after.isTop())
+                            .lt(Post::getCreateTime, after.createTime()))
+                    .or(o -> o.eq(Post::getIsTop, after.isTop())
+                            .eq(Post::getCreateTime, after.createTime())
+                            .lt(Post::getPostId, after.postId())));
+        }
+        wrapper.orderByDesc(Post::getIsTop, Post::getCreateTime, Post::getPostId)
+                .last("LIMIT " + (pageSize + 1));
+        List<Post> posts = postMapper.selectList(wrapper);
+
+        boolean hasMore = posts.size() > pageSize;
+        if (hasMore) {
+            posts = posts.subList(0, pageSize);
+        }
+        Post last = posts.isEmpty() ? null : posts.get(posts.size() - 1);
+        String nextCursor = hasMore
+                ? new FeedCursor(last.getIsTop(), last.getCreateTime(), last.getPostId()).encode()
+                : null;
+        return buildFeed(posts, nextCursor);
+    }
+
+    /**
+     * 只查询卡片需要的列，不读取 content 等大字段
+     */
+    private LambdaQueryWrapper<Post> cardQuery() {
+        return new LambdaQueryWrapper<Post>()
+                .select(Post::getPostId, Post::getUserId, Post::getTitle, Post::getCoverImage,
+                        Post::getPostType, Post::getViewCount, Post::getLikeCount, Post::getCommentCount,
+                        Post::getCollectCount, Post::getIsTop, Post::getIsHot, Post::getCreateTime);
+    }
+
+    private PostFeedVO buildFeed(List<Post> posts, String nextCursor) {
+        List<PostCardVO> cards = postHydrator.hydrateCards(posts, UserContext.getCurrentUserId());
+        if (!cards.isEmpty()) {
+            try {
+                Map<Long, Long> pendingViews = postViewCounter.getPending(
+                        cards.stream().map(PostCardVO::getPostId).collect(Collectors.toList()));
+                for (PostCardVO card : cards) {
+                    Long pending = pendingViews.get(card.getPostId());
+                    if (pending != null) {
+                        card.setViewCount((int) (card.getViewCount() + pending));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("查询帖子待写回浏览量失败: {}", e.getMessage());
+            }
+        }
+        return PostFeedVO.builder()
+                .posts(cards)
+                .nextCursor(nextCursor)
+                .hasMore(nextCursor != null)
+                .build();
+    }
+
+    private static int normalizeSize(Integer size) {
+        if (size == null || size <= 0) {
+            return FEED_DEFAULT_SIZE;
+        }
+        return Math.min(size, FEED_MAX_SIZE);
+    }
+
     /**
      * 保存帖子图片
      */
@@ -236,7 +438,7 @@ public class PostServiceImpl implements PostService {
     /**
      * 保存帖子标签
      */
-    private void savePostTags(Long postId, List<Long> tagIds) {
+    private void savePostTags(Post post, List<Long> tagIds) {
         for (Long tagId : tagIds) {
             // 验证标签是否存在
             Tag tag = tagMapper.selectById(tagId);
@@ -246,9 +448,12 @@ public class PostServiceImpl implements PostService {
             }
 
             PostTag postTag = PostTag.builder()
-                    .postId(postId)
+                    .postId(post.getPostId())
                     .tagId(tagId)
                     .createTime(LocalDateTime.now())
+                    .postStatus(post.getStatus())
+                    .postIsTop(post.getIsTop())
+                    .postCreateTime(post.getCreateTime())
                     .build();
             postTagMapper.insert(postTag);
 
@@ -257,74 +462,4 @@ public class PostServiceImpl implements PostService {
             tagMapper.updateById(tag);
         }
     }
-
-    /**
-     * 将 Post 转换为 PostVO
-     */
-    private PostVO convertToVO(Post post) {
-        PostVO vo = new PostVO();
-        BeanUtils.copyProperties(post, vo);
-
-        // 查询帖子图片列表
-        List<PostImage> postImages = postImageMapper.selectList(
-                new LambdaQueryWrapper<PostImage>()
-                        .eq(PostImage::getPostId, post.getPostId())
-                        .orderByAsc(PostImage::getSortOrder)
-        );
-        List<String> imageUrls = postImages.stream()
-                .map(PostImage::getImageUrl)
-                .collect(Collectors.toList());
-        vo.setImages(imageUrls);
-
-        // 查询帖子标签列表
-        List<Long> tagIds = postTagMapper.selectList(
-                new LambdaQueryWrapper<PostTag>()
-                        .eq(PostTag::getPostId, post.getPostId())
-        ).stream().map(PostTag::getTagId).collect(Collectors.toList());
-
-        if (!tagIds.isEmpty()) {
-            List<Tag> tags = tagMapper.selectBatchIds(tagIds);
-            vo.setTags(tags);
-        } else {
-            vo.setTags(new ArrayList<>());
-        }
-
-        // TODO: 通过 Feign 调用 User 模块获取用户信息
-        // User author = userClient.getUserById(post.getUserId()).getData();
-        // vo.setUserName(author.getUserName());
-        // vo.setNickName(author.getNickName());
-        // vo.setAvatar(author.getAvatar());
-
-        // 暂时设置为 null，等待 Feign 集成
-        vo.setUserName(null);
-        vo.setNickName(null);
-        vo.setAvatar(null);
-
-        // 判断当前用户是否点赞/收藏了该帖子
-        Long currentUserId = UserContext.getCurrentUserId();
-        if (currentUserId != null) {
-            // 查询是否点赞
-            boolean isLiked = likeRecordMapper.exists(
-                    new LambdaQueryWrapper<LikeRecord>()
-                            .eq(LikeRecord::getUserId, currentUserId)
-                            .eq(LikeRecord::getTargetId, post.getPostId())
-                            .eq(LikeRecord::getTargetType, 1)  // 1-帖子
-            );
-            vo.setIsLiked(isLiked);
-
-            // 查询是否收藏
-            boolean isCollected = collectRecordMapper.exists(
-                    new LambdaQueryWrapper<CollectRecord>()
-                            .eq(CollectRecord::getUserId, currentUserId)
-                            .eq(CollectRecord::getPostId, post.getPostId())
-            );
-            vo.setIsCollected(isCollected);
-        } else {
-            vo.setIsLiked(false);
-            vo.setIsCollected(false);
-        }
-
-        return vo;
-    }
 }
-
@@ -0,0 +1,167 @@
+package com.wtu.service.impl;
+
+import com.wtu.mapper.PostMapper;
+import com.wtu.properties.PostViewProperties;
+import com.wtu.service.PostViewCounter;
+import com.wtu.utils.RedisUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 帖子浏览量计数实现
+ * 浏览增量用 HINCRBY 累加在一个Hash中；写回时先把整个Hash RENAME 为写回中的Hash，
+ * 新的浏览落到新Hash里，互不干扰。写回中的Hash按批先删除字段再 UPDATE，
+ * 读到的浏览量在删除和提交之间会短暂少算这一批，但不会重复累加；
+ * 每轮只写锁过期时间的一半，剩余字段留在Redis，下一轮继续写回
+ *
+ * @author WTU
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostViewCounterImpl implements PostViewCounter {
+
+    private static final String PENDING_KEY = "community:post:view:pending";
+    private static final String FLUSHING_KEY = "community:post:view:flushing";
+    private static final String FLUSH_LOCK_KEY = "community:post:view:flush-lock";
+
+    // 仍持有写回锁时才从写回中的Hash删除这一批字段；帖子ID按数字传入，序列化后与Hash的字段名一致
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "for i = 2, #ARGV do redis.call('HDEL', KEYS[2], ARGV[i]) end " +
+            "return 1", Long.class);
+
+    private final RedisUtil redisUtil;
+    private final PostMapper postMapper;
+    private final PostViewProperties viewProperties;
+
+    @Override
+    public long increment(Long postId) {
+        String field = postId.toString();
+        long pending = redisUtil.hIncrement(PENDING_KEY, field, 1);
+        // 正在写回的增量尚未落库，同样需要叠加
+        return pending + toLong(redisUtil.hGet(FLUSHING_KEY, field));
+    }
+
+    @Override
+    public Map<Long, Long> getPending(Collection<Long> postIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(postIds);
+        List<Object> fields = new ArrayList<>(ids.size());
+        for (Long postId : ids) {
+            fields.add(postId.toString());
+        }
+        List<Object> pending = redisUtil.hMultiGet(PENDING_KEY, fields);
+        List<Object> flushing = redisUtil.hMultiGet(FLUSHING_KEY, fields);
+        for (int i = 0; i < ids.size(); i++) {
+            long delta = toLong(pending.get(i)) + toLong(flushing.get(i));
+            if (delta != 0) {
+                result.put(ids.get(i), delta);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.community.view.flush-interval:5000}")
+    public void flush() {
+        String token = redisUtil.tryLock(FLUSH_LOCK_KEY, viewProperties.getLockTimeout(), TimeUnit.MILLISECONDS);
+        if (token == null) {
+            return;
+        }
+        try {
+            // 上一轮没写完的先继续写，写完后再切换新的一批
+            if (!Boolean.TRUE.equals(redisUtil.hasKey(FLUSHING_KEY))) {
+                if (!Boolean.TRUE.equals(redisUtil.hasKey(PENDING_KEY))
+                        || !Boolean.TRUE.equals(redisUtil.renameIfAbsent(PENDING_KEY, FLUSHING_KEY))) {
+                    return;
+                }
+            }
+            writeBack(token);
+        } catch (Exception e) {
+            log.error("帖子浏览量写回失败，下一轮重试", e);
+        } finally {
+            redisUtil.unlock(FLUSH_LOCK_KEY, token);
+        }
+    }
+
+    private void writeBack(String token) {
+        Map<Object, Object> entries = redisUtil.hGetAll(FLUSHING_KEY);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        // 每轮最多用锁过期时间的一半，保证删除字段时锁还没过期
+        long deadline = System.currentTimeMillis() + viewProperties.getLockTimeout() / 2;
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        int flushed = 0;
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            long delta = toLong(entry.getValue());
+            if (delta == 0) {
+                redisUtil.hDelete(FLUSHING_KEY, entry.getKey());
+                continue;
+            }
+            batch.put(Long.valueOf(entry.getKey().toString()), delta);
+            if (batch.size() >= viewProperties.getBatchSize()) {
+                if (!writeBatch(token, batch) || System.currentTimeMillis() >= deadline) {
+                    log.debug("写回 {} 个帖子的浏览量，剩余的下一轮继续", flushed);
+                    return;
+                }
+                flushed += viewProperties.getBatchSize();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int size = batch.size();
+            if (writeBatch(token, batch)) {
+                flushed += size;
+            }
+        }
+        log.debug("写回 {} 个帖子的浏览量", flushed);
+    }
+
+    /**
+     * 先在持有锁的前提下删除这一批字段，再写回MySQL；写库失败时把增量加回写回中的Hash，下一轮重试。
+     * 删除后写库前进程退出会丢掉这一批浏览量，浏览量允许这点误差，换取读时不重复累加
+     *
+     * @return 锁已过期时返回false，这一批留给持有锁的实例处理
+     */
+    private boolean writeBatch(String token, Map<Long, Long> batch) {
+        List<Object> args = new ArrayList<>(batch.size() + 1);
+        args.add(token);
+        args.addAll(batch.keySet());
+        Long claimed = redisUtil.execute(CLAIM_SCRIPT, List.of(FLUSH_LOCK_KEY, FLUSHING_KEY), args.toArray());
+        if (claimed == null || claimed == 0) {
+            log.warn("帖子浏览量写回锁已过期，停止本轮写回");
+            batch.clear();
+            return false;
+        }
+        try {
+            postMapper.incrementViewCounts(batch);
+        } catch (RuntimeException e) {
+            batch.forEach((postId, delta) -> redisUtil.hIncrement(FLUSHING_KEY, postId.toString(), delta));
+            throw e;
+        }
+        batch.clear();
+        return true;
+    }
+
+    private static long toLong(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+}
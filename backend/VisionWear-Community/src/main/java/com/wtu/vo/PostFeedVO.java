@@ -0,0 +1,31 @@
+package com.wtu.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 帖子信息流分页结果（游标分页）
+ *
+ * @author WTU
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "帖子信息流分页结果")
+public class PostFeedVO {
+
+    @Schema(description = "本页帖子卡片")
+    private List<PostCardVO> posts;
+
+    @Schema(description = "下一页游标，没有更多数据时为null")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多数据")
+    private Boolean hasMore;
+}
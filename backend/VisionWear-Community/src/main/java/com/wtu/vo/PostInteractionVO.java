@@ -0,0 +1,35 @@
+package com.wtu.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 帖子点赞/收藏状态视图对象
+ *
+ * @author WTU
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "帖子点赞/收藏状态视图对象")
+public class PostInteractionVO {
+
+    @Schema(description = "帖子ID")
+    private Long postId;
+
+    @Schema(description = "点赞数")
+    private Integer likeCount;
+
+    @Schema(description = "收藏数")
+    private Integer collectCount;
+
+    @Schema(description = "当前用户是否点赞")
+    private Boolean isLiked;
+
+    @Schema(description = "当前用户是否收藏")
+    private Boolean isCollected;
+}
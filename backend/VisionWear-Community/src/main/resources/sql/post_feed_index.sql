@@ -0,0 +1,25 @@
+-- 帖子信息流游标分页所需索引
+-- 排序键统一为 (is_top DESC, create_time DESC, post_id DESC)，按页定位只做索引范围扫描，深翻页耗时不随页数增长
+
+-- 最新信息流：WHERE status = 0 ORDER BY is_top, create_time, post_id
+ALTER TABLE post
+    ADD INDEX idx_post_feed (status, is_top, create_time, post_id);
+
+-- 作者信息流：WHERE user_id = ? AND status = 0 ORDER BY is_top, create_time, post_id
+ALTER TABLE post
+    ADD INDEX idx_post_author_feed (user_id, status, is_top, create_time, post_id);
+
+-- 标签信息流：在 post_tag 上冗余帖子的排序键，分页只扫描该表的覆盖索引，再按主键取一页帖子
+ALTER TABLE post_tag
+    ADD COLUMN post_status      TINYINT  NOT NULL DEFAULT 0 COMMENT '帖子状态（冗余）',
+    ADD COLUMN post_is_top      TINYINT  NOT NULL DEFAULT 0 COMMENT '帖子是否置顶（冗余）',
+    ADD COLUMN post_create_time DATETIME NULL COMMENT '帖子创建时间（冗余）';
+
+UPDATE post_tag pt
+    JOIN post p ON p.post_id = pt.post_id
+SET pt.post_status      = p.status,
+    pt.post_is_top      = p.is_top,
+    pt.post_create_time = p.create_time;
+
+ALTER TABLE post_tag
+    ADD INDEX idx_post_tag_feed (tag_id, post_status, post_is_top, post_create_time, post_id);
@@ -0,0 +1,4 @@
+-- 热门标记刷新所需索引
+-- 定时任务按 is_hot = 1 找出需要取消热门的帖子，热门帖子很少，走索引不扫全表
+ALTER TABLE post
+    ADD INDEX idx_post_hot (is_hot);
@@ -0,0 +1,12 @@
+-- 点赞/收藏异步落库所需索引
+-- 唯一索引保证事件重放时 INSERT IGNORE 不会产生重复记录；同时用于按帖子加载成员集合
+
+-- 同一用户对同一目标只保留一条点赞记录
+ALTER TABLE like_record
+    ADD UNIQUE INDEX uk_like_user_target (user_id, target_type, target_id),
+    ADD INDEX idx_like_target (target_type, target_id, user_id);
+
+-- 目前只有默认收藏夹（folder_id 为 NULL），同一用户对同一帖子只保留一条收藏记录
+ALTER TABLE collect_record
+    ADD UNIQUE INDEX uk_collect_user_post (user_id, post_id),
+    ADD INDEX idx_collect_post (post_id, user_id);
@@ -0,0 +1,42 @@
+package com.wtu.service.impl;
+
+import com.wtu.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    void encodeThenDecodeKeepsAllFields() {
+        FeedCursor cursor = new FeedCursor(1, LocalDateTime.of(2025, 3, 8, 14, 30, 15, 123_000_000), 42L);
+        assertEquals(cursor, FeedCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodeThenDecodeWithoutSeconds() {
+        // LocalDateTime.toString 在秒为0时省略秒，解析时仍能还原
+        FeedCursor cursor = new FeedCursor(0, LocalDateTime.of(2025, 3, 8, 14, 30), 7L);
+        assertEquals(cursor, FeedCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = new FeedCursor(0, LocalDateTime.of(2025, 12, 31, 23, 59, 59), Long.MAX_VALUE).encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertNull(FeedCursor.decode(null));
+        assertNull(FeedCursor.decode(""));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(BusinessException.class, () -> FeedCursor.decode("not a cursor"));
+        assertThrows(BusinessException.class, () -> FeedCursor.decode("MXwyMDI1"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.wtu.entity.Post;
+import com.wtu.entity.PostImage;
+import com.wtu.entity.PostTag;
+import com.wtu.entity.Tag;
+import com.wtu.mapper.PostImageMapper;
+import com.wtu.mapper.PostTagMapper;
+import com.wtu.mapper.TagMapper;
+import com.wtu.service.PostInteractionService;
+import com.wtu.service.PostInteractionService.InteractionState;
+import com.wtu.vo.PostCardVO;
+import com.wtu.vo.PostVO;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量组装的往返次数：每次查询或Redis管道计为一次往返，往返次数应与帖子数无关
+ */
+class PostHydratorImplTest {
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda条件构造需要实体的字段映射，没有Spring上下文时手动初始化
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, PostImage.class);
+        TableInfoHelper.initTableInfo(assistant, PostTag.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 50, 100})
+    void hydrateUsesFixedRoundTrips(int n) {
+        AtomicInteger roundTrips = new AtomicInteger();
+        List<Post> posts = posts(n);
+        PostHydratorImpl hydrator = hydrator(posts, roundTrips);
+
+        List<PostVO> result = hydrator.hydrate(posts, 1L);
+
+        // 图片、标签关联、标签、点赞收藏状态各一次；逐条查询时为 5N 次
+        assertEquals(4, roundTrips.get());
+
+        assertEquals(n, result.size());
+        for (int i = 0; i < n; i++) {
+            PostVO vo = result.get(i);
+            assertEquals(posts.get(i).getPostId(), vo.getPostId());
+            assertEquals(List.of(imageUrl(vo.getPostId(), 1), imageUrl(vo.getPostId(), 2)), vo.getImages());
+            assertEquals(2, vo.getTags().size());
+            assertEquals(vo.getPostId() % 2 == 0, vo.getIsLiked());
+            assertEquals(3, vo.getLikeCount());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 50, 100})
+    void hydrateCardsSkipsImages(int n) {
+        AtomicInteger roundTrips = new AtomicInteger();
+        List<Post> posts = posts(n);
+        PostHydratorImpl hydrator = hydrator(posts, roundTrips);
+
+        List<PostCardVO> result = hydrator.hydrateCards(posts, 1L);
+
+        assertEquals(3, roundTrips.get());
+        assertEquals(n, result.size());
+        assertEquals(2, result.get(n - 1).getTags().size());
+    }
+
+    private static PostHydratorImpl hydrator(List<Post> posts, AtomicInteger roundTrips) {
+        PostImageMapper postImageMapper = mock(PostImageMapper.class);
+        PostTagMapper postTagMapper = mock(PostTagMapper.class);
+        TagMapper tagMapper = mock(TagMapper.class);
+        PostInteractionService postInteractionService = mock(PostInteractionService.class);
+
+        List<PostImage> images = new ArrayList<>();
+        List<PostTag> postTags = new ArrayList<>();
+        Map<Long, InteractionState> states = new HashMap<>();
+        for (Post post : posts) {
+            Long postId = post.getPostId();
+            for (int order = 1; order <= 2; order++) {
+                images.add(PostImage.builder().postId(postId).imageUrl(imageUrl(postId, order)).sortOrder(order).build());
+                postTags.add(PostTag.builder().postId(postId).tagId((long) order).build());
+            }
+            states.put(postId, new InteractionState(postId % 2 == 0, false, 3, 1));
+        }
+        List<Tag> tags = List.of(Tag.builder().tagId(1L).tagName("通勤").build(),
+                Tag.builder().tagId(2L).tagName("复古").build());
+
+        when(postImageMapper.selectList(any())).thenAnswer(invocation -> roundTrip(roundTrips, images));
+        when(postTagMapper.selectList(any())).thenAnswer(invocation -> roundTrip(roundTrips, postTags));
+        when(tagMapper.selectBatchIds(any())).thenAnswer(invocation -> roundTrip(roundTrips, tags));
+        when(postInteractionService.getStates(any(), any())).thenAnswer(invocation -> roundTrip(roundTrips, states));
+        return new PostHydratorImpl(postImageMapper, postTagMapper, tagMapper, postInteractionService);
+    }
+
+    private static <T> T roundTrip(AtomicInteger roundTrips, T result) {
+        roundTrips.incrementAndGet();
+        return result;
+    }
+
+    private static List<Post> posts(int n) {
+        List<Post> posts = new ArrayList<>(n);
+        for (long id = 1; id <= n; id++) {
+            posts.add(Post.builder().postId(id).userId(id % 7).title("帖子" + id).status(0).isTop(0)
+                    .likeCount(0).collectCount(0).viewCount(0).build());
+        }
+        return posts;
+    }
+
+    private static String imageUrl(Long postId, int order) {
+        return "https://oss.example.com/post/" + postId + "/" + order + ".jpg";
+    }
+}
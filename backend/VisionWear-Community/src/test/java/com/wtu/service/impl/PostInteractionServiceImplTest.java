@@ -0,0 +1,54 @@
+package com.wtu.service.impl;
+
+import com.wtu.service.impl.PostInteractionServiceImpl.Event;
+import com.wtu.service.impl.PostInteractionServiceImpl.Kind;
+import com.wtu.service.impl.PostInteractionServiceImpl.MergedEvents;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostInteractionServiceImplTest {
+
+    @Test
+    void eventEncodeThenParse() {
+        Event event = new Event(Kind.COLLECT, false, 10L, 20L, 1_700_000_000_000L);
+        assertEquals(event, Event.parse(event.encode()));
+    }
+
+    @Test
+    void malformedEventIsIgnored() {
+        assertNull(Event.parse("X|1|10|20|0"));
+        assertNull(Event.parse("L|1|10"));
+    }
+
+    @Test
+    void mergeKeepsLastOperationPerUserAndSumsCounts() {
+        List<Object> batch = List.of(
+                like(true, 1L, 100L, 1),
+                like(false, 1L, 100L, 2),
+                like(true, 1L, 100L, 3),
+                like(true, 1L, 200L, 4),
+                "garbage",
+                new Event(Kind.COLLECT, true, 2L, 100L, 5).encode(),
+                new Event(Kind.COLLECT, false, 2L, 100L, 6).encode());
+
+        MergedEvents merged = PostInteractionServiceImpl.merge(batch);
+
+        // 用户100对帖子1的三次操作只保留最后一次加入；收藏先加后删只保留删除
+        assertEquals(3, merged.latest().size());
+        assertTrue(merged.latest().contains(Event.parse(like(true, 1L, 100L, 3))));
+        assertTrue(merged.latest().contains(Event.parse(like(true, 1L, 200L, 4))));
+        assertTrue(merged.latest().contains(new Event(Kind.COLLECT, false, 2L, 100L, 6)));
+
+        assertEquals(Map.of(1L, 2L), merged.likeDeltas());
+        // 净变化为0的帖子不更新计数
+        assertTrue(merged.collectDeltas().isEmpty());
+    }
+
+    private static String like(boolean add, Long postId, Long userId, long time) {
+        return new Event(Kind.LIKE, add, postId, userId, time).encode();
+    }
+}
@@ -42,6 +42,7 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
             "/api/auth/login",
             "/api/auth/register",
             "/api/auth/wxCheck",
+            "/api/image/ttapi/webhook",
             "/doc.html",
             "/swagger-ui.html",
             "/swagger-ui/**",
@@ -3,9 +3,11 @@ package com.wtu;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.wtu"})
 @EnableFeignClients
+@EnableScheduling
 public class ImageApplication {
     public static void main(String[] args) {
         SpringApplication.run(ImageApplication.class, args);
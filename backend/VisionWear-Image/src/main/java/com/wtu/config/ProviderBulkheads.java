@@ -0,0 +1,133 @@
+package com.wtu.config;
+
+import com.wtu.exception.BusinessException;
+import com.wtu.properties.ProviderBulkheadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按厂商隔离的并发限制
+ * 慢厂商只会占满自己的名额，不再拖垮其他厂商和上传、查询等接口的工作线程；
+ * 名额和排队都满时立即拒绝
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProviderBulkheads {
+
+    private final ProviderBulkheadProperties bulkheadProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 在厂商名额内执行一次调用
+     *
+     * @param provider 厂商标识
+     * @param call     厂商调用
+     * @return 调用结果
+     * @throws BusinessException 名额与排队已满或等待超时
+     */
+    public <T> T execute(String provider, Callable<T> call) throws Exception {
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(provider, this::create);
+        bulkhead.acquire();
+        try {
+            return call.call();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private Bulkhead create(String provider) {
+        ProviderBulkheadProperties.Limit limit = bulkheadProperties.limitOf(provider);
+        Bulkhead bulkhead = new Bulkhead(provider, limit,
+                Counter.builder("provider.bulkhead.rejected")
+                        .description("厂商调用被拒绝次数")
+                        .tag("provider", provider)
+                        .register(meterRegistry));
+
+        Gauge.builder("provider.bulkhead.active", bulkhead.active, AtomicInteger::get)
+                .description("厂商在途调用数")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("provider.bulkhead.queued", bulkhead.queued, AtomicInteger::get)
+                .description("厂商排队调用数")
+                .tag("provider", provider)
+                .register(meterRegistry);
+
+        log.info("{} 调用隔离：最大并发 {}，排队上限 {}，等待超时 {} ms",
+                provider, limit.getMaxConcurrent(), limit.getQueueDepth(), limit.getWaitTimeout());
+        return bulkhead;
+    }
+
+    private static final class Bulkhead {
+        private final String provider;
+        private final ProviderBulkheadProperties.Limit limit;
+        private final Counter rejected;
+        // 公平信号量，排队者按到达顺序获得释放的名额
+        private final Semaphore permits;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Bulkhead(String provider, ProviderBulkheadProperties.Limit limit, Counter rejected) {
+            this.provider = provider;
+            this.limit = limit;
+            this.rejected = rejected;
+            this.permits = new Semaphore(limit.getMaxConcurrent(), true);
+        }
+
+        private void acquire() {
+            // 有空闲名额时直接获取，否则进入排队；带超时的 tryAcquire 遵守公平顺序，不会插队到排队者之前
+            if (!tryAcquireNow()) {
+                if (queued.incrementAndGet() > limit.getQueueDepth()) {
+                    queued.decrementAndGet();
+                    throw reject("排队已满");
+                }
+                boolean acquired;
+                try {
+                    acquired = permits.tryAcquire(limit.getWaitTimeout(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    acquired = false;
+                } finally {
+                    queued.decrementAndGet();
+                }
+                if (!acquired) {
+                    throw reject("等待超时");
+                }
+            }
+            active.incrementAndGet();
+        }
+
+        private boolean tryAcquireNow() {
+            try {
+                return permits.tryAcquire(0, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void release() {
+            active.decrementAndGet();
+            permits.release();
+        }
+
+        private BusinessException reject(String reason) {
+            rejected.increment();
+            log.warn("{} 调用被拒绝：{}，在途 {}，排队 {}", provider, reason, active.get(), queued.get());
+            return new BusinessException("生成服务繁忙，请稍后重试");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.wtu.config;
+
+import com.alibaba.dashscope.aigc.imagesynthesis.ImageSynthesis;
+import com.tencentcloudapi.aiart.v20221229.AiartClient;
+import com.tencentcloudapi.common.Credential;
+import com.tencentcloudapi.common.profile.ClientProfile;
+import com.tencentcloudapi.common.profile.HttpProfile;
+import com.volcengine.service.visual.IVisualService;
+import com.volcengine.service.visual.impl.VisualServiceImpl;
+import com.wtu.exception.BusinessException;
+import com.wtu.properties.ProviderProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 厂商SDK客户端注册表
+ * 每个地域的客户端只创建一次并复用，不再每次请求都解析YAML、初始化SDK。
+ * 缓存项记录创建时使用的密钥，配置中心刷新密钥后下次获取时自动重建
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProviderClientRegistry {
+
+    public static final String PROVIDER_DOUBAO = "doubao";
+    public static final String PROVIDER_TONGYI = "tongyi";
+    public static final String PROVIDER_TENCENT = "tencent";
+    public static final String PROVIDER_TTAPI = "ttapi";
+
+    // 通义涂鸦作图使用的任务类型
+    public static final String TONGYI_TASK_IMAGE2IMAGE = "image2image";
+    // 通义默认任务类型，对应new ImageSynthesis()
+    private static final String TONGYI_TASK_DEFAULT = "";
+
+    private final ProviderProperties providerProperties;
+    private final MeterRegistry meterRegistry;
+
+    // 按地域缓存的豆包客户端
+    private final Map<String, CachedClient<IVisualService>> visualServices = new ConcurrentHashMap<>();
+    // 按地域缓存的腾讯云客户端
+    private final Map<String, CachedClient<AiartClient>> aiartClients = new ConcurrentHashMap<>();
+    // 按任务类型缓存的通义客户端，apiKey随请求参数传入，不参与缓存
+    private final Map<String, ImageSynthesis> imageSyntheses = new ConcurrentHashMap<>();
+
+    // 各厂商是否已完成预热
+    private final Map<String, AtomicBoolean> warmed = new ConcurrentHashMap<>();
+
+    /**
+     * 获取默认地域的豆包客户端
+     */
+    public IVisualService getVisualService() {
+        return getVisualService(providerProperties.getDoubao().getRegion());
+    }
+
+    /**
+     * 获取指定地域的豆包客户端
+     *
+     * @param region 火山引擎地域
+     * @return 共享的VisualService实例
+     */
+    public IVisualService getVisualService(String region) {
+        ProviderProperties.Doubao doubao = providerProperties.getDoubao();
+        return resolve(visualServices, region, doubao.getAk(), doubao.getSk(), PROVIDER_DOUBAO, () -> {
+            try {
+                IVisualService visualService = VisualServiceImpl.getInstance(region);
+                visualService.setAccessKey(doubao.getAk());
+                visualService.setSecretKey(doubao.getSk());
+                return visualService;
+            } catch (Exception e) {
+                throw new BusinessException("创建豆包客户端失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 获取默认地域的腾讯云生图客户端
+     */
+    public AiartClient getAiartClient() {
+        ProviderProperties.Tencent tencent = providerProperties.getTencent();
+        return resolve(aiartClients, tencent.getRegion(), tencent.getSecretId(), tencent.getSecretKey(),
+                PROVIDER_TENCENT, () -> {
+                    Credential cred = new Credential(tencent.getSecretId(), tencent.getSecretKey());
+                    HttpProfile httpProfile = new HttpProfile();
+                    httpProfile.setEndpoint(tencent.getEndpoint());
+                    ClientProfile clientProfile = new ClientProfile();
+                    clientProfile.setHttpProfile(httpProfile);
+                    return new AiartClient(cred, tencent.getRegion(), clientProfile);
+                });
+    }
+
+    /**
+     * 获取通义默认任务类型的客户端
+     */
+    public ImageSynthesis getImageSynthesis() {
+        return getImageSynthesis(TONGYI_TASK_DEFAULT);
+    }
+
+    /**
+     * 获取指定任务类型的通义客户端
+     *
+     * @param task 任务类型，如image2image
+     * @return 共享的ImageSynthesis实例
+     */
+    public ImageSynthesis getImageSynthesis(String task) {
+        return imageSyntheses.computeIfAbsent(task, k -> {
+            ImageSynthesis imageSynthesis = k.isEmpty() ? new ImageSynthesis() : new ImageSynthesis(k);
+            onCreated(PROVIDER_TONGYI, false);
+            return imageSynthesis;
+        });
+    }
+
+    /**
+     * 启动完成后预热默认客户端，首个请求不再承担SDK初始化开销
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        warm(PROVIDER_DOUBAO, this::getVisualService);
+        warm(PROVIDER_TENCENT, this::getAiartClient);
+        warm(PROVIDER_TONGYI, () -> {
+            getImageSynthesis();
+            return getImageSynthesis(TONGYI_TASK_IMAGE2IMAGE);
+        });
+    }
+
+    /**
+     * 查询厂商是否已完成预热
+     */
+    public boolean isWarm(String provider) {
+        return warmFlag(provider).get();
+    }
+
+    private void warm(String provider, Supplier<?> action) {
+        long start = System.currentTimeMillis();
+        try {
+            action.get();
+            warmFlag(provider).set(true);
+            log.info("{} 客户端预热完成，耗时 {} ms", provider, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("{} 客户端预热失败，将在首次请求时重试: {}", provider, e.getMessage());
+        }
+    }
+
+    /**
+     * 命中且密钥未变时直接返回缓存，否则在该key上串行重建
+     */
+    private <T> T resolve(Map<String, CachedClient<T>> cache, String key, String accessKey, String secretKey,
+                          String provider, Supplier<T> factory) {
+        CachedClient<T> cached = cache.get(key);
+        if (cached != null && cached.matches(accessKey, secretKey)) {
+            return cached.client();
+        }
+        return cache.compute(key, (k, old) -> {
+            if (old != null && old.matches(accessKey, secretKey)) {
+                return old;
+            }
+            T client = factory.get();
+            onCreated(provider, old != null);
+            return new CachedClient<>(accessKey, secretKey, client);
+        }).client();
+    }
+
+    private void onCreated(String provider, boolean refresh) {
+        warmFlag(provider).set(true);
+        Counter.builder("provider.client.created")
+                .description("厂商SDK客户端创建次数")
+                .tag("provider", provider)
+                .tag("reason", refresh ? "refresh" : "initial")
+                .register(meterRegistry)
+                .increment();
+        if (refresh) {
+            log.info("{} 密钥已变更，重建客户端", provider);
+        }
+    }
+
+    private AtomicBoolean warmFlag(String provider) {
+        return warmed.computeIfAbsent(provider, p -> {
+            AtomicBoolean flag = new AtomicBoolean();
+            Gauge.builder("provider.client.warm", flag, f -> f.get() ? 1 : 0)
+                    .description("厂商SDK客户端是否已预热")
+                    .tag("provider", p)
+                    .register(meterRegistry);
+            return flag;
+        });
+    }
+
+    private record CachedClient<T>(String accessKey, String secretKey, T client) {
+        boolean matches(String ak, String sk) {
+            return Objects.equals(accessKey, ak) && Objects.equals(secretKey, sk);
+        }
+    }
+}
@@ -1,26 +1,51 @@
 package com.wtu.controller;
 import com.wtu.dto.image.*;
 import com.wtu.vo.DoodleToImageByTYVO;
+import com.wtu.vo.GalleryImageVO;
+import com.wtu.vo.GalleryPageVO;
 import com.wtu.vo.ImageFusionVO;
+import com.wtu.vo.ImageJobVO;
+import com.wtu.vo.PresignUploadVO;
+import com.wtu.vo.UploadSessionVO;
 import com.wtu.vo.SketchToImageByTYVO;
 import com.wtu.vo.SketchToImageVO;
+import com.wtu.entity.ImageJob;
 import com.wtu.exception.BusinessException;
+import com.wtu.properties.ImageJobProperties;
+import com.wtu.properties.ImageRenderProperties;
 import com.wtu.result.Result;
+import com.wtu.service.GenerationCacheService;
+import com.wtu.service.ImageJobService;
+import com.wtu.service.ImageRenderService;
 import com.wtu.service.ImageService;
 import com.wtu.service.ImageStorageService;
-import com.wtu.utils.AliOssUtil;
+import com.wtu.service.ImageUploadService;
+import com.wtu.service.JobEventService;
+import com.wtu.utils.ImageScaler;
 import com.wtu.utils.UserContext;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,7 +58,13 @@ public class ImageController {
     // IOC 注入
     private final ImageService imageService;
     private final ImageStorageService imageStorageService;
-    private final AliOssUtil aliOssUtil;
+    private final ImageJobService imageJobService;
+    private final ImageJobProperties jobProperties;
+    private final GenerationCacheService generationCacheService;
+    private final JobEventService jobEventService;
+    private final ImageRenderService imageRenderService;
+    private final ImageRenderProperties renderProperties;
+    private final ImageUploadService imageUploadService;
 
 
     @PostMapping("/doubao/text-to-image")
@@ -69,17 +100,50 @@ public class ImageController {
 
     @PostMapping("/doubao/image-to-image")
     @Operation(summary = "图生图功能")
-    public Result<List<String>> imageToImage(@RequestBody ImageToImageDTO request) {
-        try {
-            Long userId = UserContext.getCurrentUserId();
-            // 调用用户服务的imageToImage方法生成图像
-            List<String> ids = imageService.imageToImage(request, userId);
-            List<String> urls = ids.
-                    stream().
-                    map(imageStorageService::getImageUrl).
-                    collect(Collectors.toList());
+    public DeferredResult<Result<List<String>>> imageToImage(@RequestBody ImageToImageDTO request) {
+        Long userId = UserContext.getCurrentUserId();
+        ImageJobVO job = submitImageToImageJob(request, userId);
 
-            return Result.success(urls);
+        // 等待期间不占用Tomcat工作线程，任务结束后由轮询器回写结果
+        DeferredResult<Result<List<String>>> deferred = new DeferredResult<>(jobProperties.getAwaitTimeout());
+        deferred.onTimeout(() -> deferred.setErrorResult(
+                new BusinessException("图像生成超时，请稍后通过任务ID查询: " + job.getJobId())));
+        imageJobService.awaitJob(job.getJobId()).thenAccept(done -> {
+            if (done.getStatus() == ImageJob.STATUS_SUCCEEDED) {
+                deferred.setResult(Result.success(done.getImageUrls()));
+            } else {
+                deferred.setErrorResult(new BusinessException("以图生图失败: " + done.getErrorMsg()));
+            }
+        });
+        return deferred;
+    }
+
+    @PostMapping("/doubao/image-to-image/submit")
+    @Operation(summary = "提交图生图任务，立即返回任务ID")
+    public Result<ImageJobVO> submitImageToImage(@RequestBody ImageToImageDTO request) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(submitImageToImageJob(request, userId));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "查询图像生成任务状态")
+    public Result<ImageJobVO> getJob(@PathVariable String jobId) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageJobService.getJob(jobId, userId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅任务进度（SSE），适用于图生图任务和图片融合任务")
+    public SseEmitter jobEvents(@PathVariable String jobId,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long userId = UserContext.getCurrentUserId();
+        return jobEventService.subscribe(jobId, userId, lastEventId);
+    }
+
+    private ImageJobVO submitImageToImageJob(ImageToImageDTO request, Long userId) {
+        try {
+            // 调用用户服务的imageToImage方法提交任务
+            return imageService.imageToImage(request, userId);
         } catch (Exception e) {
             // 错误信息处理保持不变
             String errorMessage = e.getMessage();
@@ -192,10 +256,8 @@ public class ImageController {
             }
 
             String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            // 构建新的文件名称
-            String objectName = UUID.randomUUID() + extension;
-
-            String filePath = aliOssUtil.upload(file.getBytes(), objectName);
+            // 相同内容的文件复用已有对象
+            String filePath = imageStorageService.uploadFile(file.getBytes(), extension);
 
             return Result.success(filePath);
         } catch (IOException e) {
@@ -205,11 +267,182 @@ public class ImageController {
         }
     }
 
+    @PostMapping("/upload/presign")
+    @Operation(summary = "申请直传OSS地址，文件不经过服务端")
+    public Result<PresignUploadVO> presignUpload(@RequestBody @Valid PresignUploadDTO request) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageUploadService.presign(request, userId));
+    }
+
+    @PostMapping("/upload/{uploadId}/complete")
+    @Operation(summary = "确认直传完成并登记图片")
+    public Result<GalleryImageVO> completeUpload(@PathVariable String uploadId) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageUploadService.complete(uploadId, userId));
+    }
+
+    @PostMapping("/upload/sessions")
+    @Operation(summary = "创建分片上传会话")
+    public Result<UploadSessionVO> createUploadSession(@RequestBody @Valid UploadSessionDTO request) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageUploadService.createSession(request, userId));
+    }
+
+    @GetMapping("/upload/sessions/{sessionId}")
+    @Operation(summary = "查询分片上传进度，用于断点续传")
+    public Result<UploadSessionVO> getUploadSession(@PathVariable String sessionId) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageUploadService.getSession(sessionId, userId));
+    }
+
+    @PutMapping(value = "/upload/sessions/{sessionId}/parts/{partNumber}",
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "上传一个分片，请求体为分片原始字节，可并行上传")
+    public Result<String> uploadPart(@PathVariable String sessionId,
+                                     @PathVariable int partNumber,
+                                     HttpServletRequest request) throws IOException {
+        Long userId = UserContext.getCurrentUserId();
+        try (InputStream in = request.getInputStream()) {
+            imageUploadService.uploadPart(sessionId, partNumber, in, request.getContentLengthLong(), userId);
+        }
+        return Result.success("分片" + partNumber + "上传成功");
+    }
+
+    @PostMapping("/upload/sessions/{sessionId}/complete")
+    @Operation(summary = "合并分片并登记图片")
+    public Result<GalleryImageVO> completeUploadSession(@PathVariable String sessionId) {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(imageUploadService.completeSession(sessionId, userId));
+    }
+
+    @DeleteMapping("/upload/sessions/{sessionId}")
+    @Operation(summary = "放弃分片上传")
+    public Result<String> abortUploadSession(@PathVariable String sessionId) {
+        Long userId = UserContext.getCurrentUserId();
+        imageUploadService.abortSession(sessionId, userId);
+        return Result.success("已取消上传");
+    }
+
+    @PutMapping("/generation-cache")
+    @Operation(summary = "设置是否复用相同请求的生成结果")
+    public Result<Boolean> setGenerationCache(@RequestParam boolean enabled) {
+        Long userId = UserContext.getCurrentUserId();
+        generationCacheService.setEnabled(userId, enabled);
+        return Result.success(enabled);
+    }
+
+    @GetMapping("/generation-cache")
+    @Operation(summary = "查询是否复用相同请求的生成结果")
+    public Result<Boolean> getGenerationCache() {
+        Long userId = UserContext.getCurrentUserId();
+        return Result.success(generationCacheService.isEnabled(userId));
+    }
+
+    @Deprecated
     @GetMapping
-    @Operation(description = "获取所有图片URL")
+    @Operation(description = "获取所有图片URL（已废弃，改用/gallery分页接口）")
     public Result<List<String>> getAllImageUrls(@RequestHeader Long userId){
         return Result.success(imageService.getAllImageUrls(userId));
     }
 
+    @GetMapping("/{imageId}/url")
+    @Operation(summary = "按尺寸获取图片URL（thumb/medium/original）")
+    public Result<String> getImageUrl(@PathVariable String imageId,
+                                      @RequestParam(required = false) String size) {
+        // 与渲染接口一致，删除或无权访问的图片不返回URL
+        imageStorageService.checkOwner(imageId, UserContext.getCurrentUserId());
+        return Result.success(imageStorageService.getImageUrl(imageId, size));
+    }
+
+    @GetMapping("/{imageId}/render")
+    @Operation(summary = "按宽高和适配方式渲染图片（contain/cover/fill）")
+    public void renderImage(@PathVariable String imageId,
+                            @RequestParam(defaultValue = "0") int w,
+                            @RequestParam(defaultValue = "0") int h,
+                            @RequestParam(defaultValue = ImageScaler.FIT_CONTAIN) String fit,
+                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                            HttpServletResponse response) throws IOException {
+        // 304也要先校验，否则删除或无权访问的图片仍能确认存在
+        imageStorageService.checkOwner(imageId, UserContext.getCurrentUserId());
+
+        // 结果只对图片所有者可见，不允许共享缓存保存
+        String cacheControl = "private, max-age=" + renderProperties.getMaxAge();
+        // ETag只取决于参数，客户端已有时无需渲染
+        String etag = imageRenderService.etag(imageId, w, h, fit);
+        if (etagMatches(ifNoneMatch, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            return;
+        }
+
+        ImageRenderService.Rendition rendition = imageRenderService.render(imageId, w, h, fit);
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLengthLong(rendition.size());
+        response.setHeader(HttpHeaders.ETAG, rendition.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        // 按块从文件通道写到响应流，不把整个文件读入内存；Servlet输出流不是文件或套接字通道，
+        // transferTo会经过堆上的缓冲区逐块复制，并不是零拷贝
+        try (FileChannel channel = FileChannel.open(rendition.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * If-None-Match 可能是 *、逗号分隔的多个值或弱校验值（W/"..."），弱比较任一相等即命中
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @DeleteMapping("/{imageId}")
+    @Operation(summary = "删除图片")
+    public Result<String> deleteImage(@PathVariable String imageId) {
+        Long userId = UserContext.getCurrentUserId();
+        imageStorageService.deleteImage(imageId, userId);
+        return Result.success("删除成功");
+    }
+
+    @GetMapping("/gallery")
+    @Operation(summary = "游标分页获取用户图库")
+    public Result<GalleryPageVO> getGallery(@RequestHeader Long userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        return Result.success(imageService.getGallery(userId, cursor, size));
+    }
+
+    @GetMapping(value = "/gallery/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "流式导出用户全部图片")
+    public ResponseEntity<StreamingResponseBody> exportGallery() {
+        // 写出在异步线程中进行，先取出当前用户
+        Long userId = UserContext.getCurrentUserId();
+        StreamingResponseBody body = out -> imageService.exportGallery(userId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"gallery.json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
 
 }
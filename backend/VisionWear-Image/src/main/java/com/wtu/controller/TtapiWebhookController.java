@@ -0,0 +1,37 @@
+package com.wtu.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.wtu.exception.BusinessException;
+import com.wtu.result.Result;
+import com.wtu.service.FusionJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * TTAPI回调控制器
+ * 接收Midjourney融合任务的进度与结果推送，网关对该路径免登录，由token参数校验来源
+ */
+@RestController
+@RequestMapping("/api/image/ttapi")
+@RequiredArgsConstructor
+@Tag(name = "TTAPI回调")
+@Slf4j
+public class TtapiWebhookController {
+
+    private final FusionJobService fusionJobService;
+
+    @PostMapping("/webhook")
+    @Operation(summary = "接收融合任务回调")
+    public Result<Void> webhook(@RequestParam(required = false) String token,
+                                @RequestBody JsonNode payload) {
+        if (!fusionJobService.verifyHookToken(token)) {
+            log.warn("TTAPI回调令牌校验失败");
+            throw new BusinessException("回调校验失败");
+        }
+        fusionJobService.handleCallback(payload);
+        return Result.success();
+    }
+}
@@ -0,0 +1,24 @@
+package com.wtu.dto.image;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "申请直传地址请求参数")
+public class PresignUploadDTO {
+    @Schema(description = "文件内容类型，如image/png")
+    @NotBlank(message = "文件类型不能为空")
+    private String contentType;
+
+    @Schema(description = "文件大小（字节）")
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    private Long size;
+}
@@ -26,6 +26,15 @@ public class Image {
     @Schema(description = "图片OSS访问URL")
     private String imageUrl;
 
+    @Schema(description = "引用的对象内容SHA-256，为空表示独占对象")
+    private String contentHash;
+
+    @Schema(description = "缩略图URL，未生成时为空")
+    private String thumbUrl;
+
+    @Schema(description = "中图URL，未生成时为空")
+    private String mediumUrl;
+
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
 
@@ -0,0 +1,71 @@
+package com.wtu.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图像生成任务表
+ * 记录提交到模型厂商的异步任务，由后台轮询器统一推进
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("image_job")
+@Schema(description = "图像生成任务表")
+public class ImageJob {
+
+    public static final int STATUS_RUNNING = 0;
+    public static final int STATUS_SUCCEEDED = 1;
+    public static final int STATUS_FAILED = 2;
+    // 厂商已出图，正在转存到OSS（仅融合任务使用）
+    public static final int STATUS_FINALIZING = 3;
+
+    @TableId(type = IdType.INPUT)
+    @Schema(description = "任务唯一ID")
+    private String jobId;
+
+    @Schema(description = "关联用户ID")
+    private Long userId;
+
+    @Schema(description = "模型厂商，如 doubao、ttapi")
+    private String provider;
+
+    @Schema(description = "厂商服务标识（req_key）")
+    private String reqKey;
+
+    @Schema(description = "厂商侧任务ID")
+    private String taskId;
+
+    @Schema(description = "任务状态（0-处理中，1-成功，2-失败，3-转存中）")
+    private Integer status;
+
+    @Schema(description = "任务进度（0-100）")
+    private Integer progress;
+
+    @Schema(description = "生成的图片ID，多个以逗号分隔")
+    private String imageIds;
+
+    @Schema(description = "失败原因")
+    private String errorMsg;
+
+    @Schema(description = "已查询次数")
+    private Integer pollCount;
+
+    @Schema(description = "下次查询时间")
+    private LocalDateTime nextPollTime;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    @Schema(description = "更新时间")
+    private LocalDateTime updateTime;
+}
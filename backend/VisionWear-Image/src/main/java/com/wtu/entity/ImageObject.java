@@ -0,0 +1,47 @@
+package com.wtu.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按内容寻址的OSS对象索引
+ * 相同内容只存一份，image表通过content_hash引用，引用计数归零后由回收任务删除
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("image_object")
+@Schema(description = "图片对象索引表")
+public class ImageObject {
+
+    // 回收任务已认领，正在删除OSS对象，不能再被引用
+    public static final int REF_COLLECTING = -1;
+
+    @TableId(type = IdType.INPUT)
+    @Schema(description = "内容SHA-256")
+    private String contentHash;
+
+    @Schema(description = "OSS对象名")
+    private String objectName;
+
+    @Schema(description = "OSS访问URL")
+    private String imageUrl;
+
+    @Schema(description = "引用计数，-1表示正在回收")
+    private Integer refCount;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+
+    @Schema(description = "更新时间，引用计数变化时刷新")
+    private LocalDateTime updateTime;
+}
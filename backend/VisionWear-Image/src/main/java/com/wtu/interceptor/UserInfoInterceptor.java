@@ -5,7 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 /**
  * 用户信息拦截器
@@ -13,7 +13,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
  */
 @Slf4j
 @Component
-public class UserInfoInterceptor implements HandlerInterceptor {
+public class UserInfoInterceptor implements AsyncHandlerInterceptor {
 
     private static final String USER_ID_HEADER = "userId";
     private static final String USER_NAME_HEADER = "userName";
@@ -50,5 +50,11 @@ public class UserInfoInterceptor implements HandlerInterceptor {
         UserContext.clear();
         log.debug("清理ThreadLocal用户信息");
     }
-}
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // 异步请求（DeferredResult）不会在当前线程回调afterCompletion，这里提前清理
+        UserContext.clear();
+    }
+}
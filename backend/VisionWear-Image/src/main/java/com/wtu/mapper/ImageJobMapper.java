@@ -0,0 +1,12 @@
+package com.wtu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wtu.entity.ImageJob;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 图像生成任务mapper
+ */
+@Mapper
+public interface ImageJobMapper extends BaseMapper<ImageJob> {
+}
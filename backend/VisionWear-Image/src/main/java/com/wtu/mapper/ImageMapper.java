@@ -2,11 +2,26 @@ package com.wtu.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.wtu.entity.Image;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 连接数据库的mapper
  */
 @Mapper
 public interface ImageMapper extends BaseMapper<Image> {
+
+    /**
+     * 多行插入图片记录，衍生图可能在记录写库前已生成，缩略图/中图URL一并写入
+     */
+    @Insert("<script>" +
+            "INSERT INTO image (image_id, user_id, image_url, thumb_url, medium_url, content_hash, create_time, status) VALUES " +
+            "<foreach collection='images' item='i' separator=','>" +
+            "(#{i.imageId}, #{i.userId}, #{i.imageUrl}, #{i.thumbUrl}, #{i.mediumUrl}, #{i.contentHash}, #{i.createTime}, #{i.status})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("images") List<Image> images);
 }
\ No newline at end of file
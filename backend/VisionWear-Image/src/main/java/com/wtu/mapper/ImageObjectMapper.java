@@ -0,0 +1,12 @@
+package com.wtu.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.wtu.entity.ImageObject;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 图片对象索引mapper
+ */
+@Mapper
+public interface ImageObjectMapper extends BaseMapper<ImageObject> {
+}
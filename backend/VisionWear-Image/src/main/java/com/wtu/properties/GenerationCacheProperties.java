@@ -0,0 +1,18 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生成结果缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.cache")
+public class GenerationCacheProperties {
+    // 是否启用结果缓存与请求合并
+    private boolean enabled = true;
+    // 结果缓存时长（秒）
+    private long ttl = 600;
+}
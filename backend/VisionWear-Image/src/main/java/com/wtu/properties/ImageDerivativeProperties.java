@@ -0,0 +1,28 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缩略图/中图生成配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.derivative")
+public class ImageDerivativeProperties {
+    // 是否在图片保存后生成缩略图和中图
+    private boolean enabled = true;
+    // 生成线程数，与请求线程和转存线程隔离
+    private int threads = 2;
+    // 排队上限，排满后丢弃任务，访问时回退到原图
+    private int queueCapacity = 200;
+    // 缩略图最长边（像素）
+    private int thumbSize = 256;
+    // 中图最长边（像素）
+    private int mediumSize = 1024;
+    // 原图像素数上限，超过时不生成衍生图
+    private long maxSourcePixels = 40_000_000L;
+    // JPEG压缩质量（0-1）
+    private float quality = 0.8f;
+}
@@ -0,0 +1,28 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图像生成任务轮询配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.job")
+public class ImageJobProperties {
+    // 每轮最多推进的任务数
+    private int batchSize = 20;
+    // 并发查询厂商结果的线程数
+    private int pollThreads = 4;
+    // 首次查询前的等待时间（毫秒）
+    private long initialDelay = 2000;
+    // 退避等待的上限（毫秒）
+    private long maxDelay = 10000;
+    // 单个任务最多查询次数，超过判定为超时
+    private int maxPolls = 30;
+    // 认领任务后的租约时长（毫秒），防止多实例重复查询
+    private long leaseMillis = 30000;
+    // 同步接口等待结果的最长时间（毫秒）
+    private long awaitTimeout = 300000;
+}
@@ -0,0 +1,20 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生成结果并行转存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.persist")
+public class ImagePersistProperties {
+    // 转存线程池大小，所有请求共享
+    private int threads = 16;
+    // 线程池排队上限，排满后由调用线程自己执行
+    private int queueCapacity = 200;
+    // 单个请求最多同时转存的图片数
+    private int perRequestParallelism = 4;
+}
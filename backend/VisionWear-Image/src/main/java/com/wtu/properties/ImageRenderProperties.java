@@ -0,0 +1,32 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按需缩放渲染配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.render")
+public class ImageRenderProperties {
+    // 渲染结果磁盘缓存目录
+    private String cacheDir = "data/render-cache";
+    // 磁盘缓存总大小上限（字节），超出后淘汰最久未访问的结果
+    private long cacheMaxBytes = 1024L * 1024 * 1024;
+    // 源图内存缓存上限（字节），同一张图的不同尺寸只下载一次
+    private long sourceCacheMaxBytes = 64L * 1024 * 1024;
+    // 源图像素数上限，超过时拒绝解码
+    private long maxSourcePixels = 40_000_000L;
+    // 允许的最大输出宽高（像素）
+    private int maxDimension = 2048;
+    // 渲染线程数
+    private int threads = 4;
+    // 渲染排队上限，排满后由调用线程渲染
+    private int queueCapacity = 64;
+    // JPEG压缩质量（0-1）
+    private float quality = 0.85f;
+    // 浏览器缓存时长（秒），同一ID的图片内容不变，可长期缓存
+    private long maxAge = 31536000;
+}
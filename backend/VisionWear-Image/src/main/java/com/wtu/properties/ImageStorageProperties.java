@@ -0,0 +1,22 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图片存储配置：按内容去重与无引用对象回收
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.storage")
+public class ImageStorageProperties {
+    // 是否按内容哈希去重存储，关闭后每张图片独立存一份
+    private boolean contentAddressed = true;
+    // 引用计数归零后至少保留的时长（毫秒），期间再次引用可直接复用
+    private long gcGrace = 600000;
+    // 每轮最多回收的对象数
+    private int gcBatchSize = 100;
+    // 图片ID到URL的本地缓存条数
+    private int urlCacheSize = 10000;
+}
@@ -0,0 +1,33 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 客户端直传OSS与分片上传配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.upload")
+public class ImageUploadProperties {
+    // 直传地址有效期（毫秒）
+    private long expire = 300000;
+    // 单个文件大小上限（字节）
+    private long maxSize = 10L * 1024 * 1024;
+    // 允许上传的内容类型
+    private List<String> allowedTypes = new ArrayList<>(List.of("image/png", "image/jpeg", "image/webp"));
+    // 直传对象的目录前缀
+    private String prefix = "uploads/";
+    // 直传地址过期后多久仍未确认则删除已上传的对象（毫秒）
+    private long orphanGrace = 600000;
+    // 分片上传的分片大小（字节），OSS要求除最后一片外不小于100KB
+    private long partSize = 5L * 1024 * 1024;
+    // 分片上传的文件大小上限（字节）
+    private long maxChunkedSize = 200L * 1024 * 1024;
+    // 分片上传会话多久没有新分片视为放弃（毫秒），放弃后中止并清理
+    private long sessionTimeout = 3600000;
+}
@@ -0,0 +1,28 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图片记录异步批量写入配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.write-behind")
+public class ImageWriteBehindProperties {
+    // 是否异步批量写入，关闭后每条记录同步插入
+    private boolean enabled = true;
+    // 攒够多少条立即写一批
+    private int batchSize = 100;
+    // 第一条记录入队后最多等待多久写出（毫秒）
+    private long flushInterval = 200;
+    // 待写队列上限，排满后由调用线程同步插入
+    private int queueCapacity = 10000;
+    // 单批写入失败后的重试次数，仍失败则落盘
+    private int maxRetries = 3;
+    // 写库失败或停机未写完的记录落盘目录，启动时重放
+    private String spillDir = "data/image-spill";
+    // 停机时等待队列写完的最长时间（毫秒）
+    private long shutdownTimeout = 10000;
+}
@@ -0,0 +1,20 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 任务进度推送（SSE）配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.sse")
+public class JobEventProperties {
+    // 检查任务状态变化的间隔（毫秒）
+    private long tick = 1000;
+    // 心跳间隔（毫秒），防止网关和浏览器断开空闲连接
+    private long heartbeat = 15000;
+    // 单个连接的最长保持时间（毫秒），超时后客户端带Last-Event-ID重连
+    private long timeout = 600000;
+}
@@ -0,0 +1,50 @@
+package com.wtu.properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 厂商调用隔离配置
+ * 每个厂商单独限制并发与排队，厂商配置中未填写的字段沿用defaults
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision.image.bulkhead")
+public class ProviderBulkheadProperties {
+    // 默认限制
+    private Limit defaults = new Limit(8, 16, 2000L);
+    // 按厂商覆盖，key为doubao/tongyi/tencent/ttapi，只需填写要覆盖的字段
+    private Map<String, Limit> providers = new HashMap<>();
+
+    /**
+     * 厂商配置逐字段合并到defaults上
+     */
+    public Limit limitOf(String provider) {
+        Limit override = providers.get(provider);
+        if (override == null) {
+            return defaults;
+        }
+        return new Limit(
+                override.getMaxConcurrent() != null ? override.getMaxConcurrent() : defaults.getMaxConcurrent(),
+                override.getQueueDepth() != null ? override.getQueueDepth() : defaults.getQueueDepth(),
+                override.getWaitTimeout() != null ? override.getWaitTimeout() : defaults.getWaitTimeout());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        // 同时在途的最大调用数
+        private Integer maxConcurrent;
+        // 最多排队等待的调用数，超过直接拒绝
+        private Integer queueDepth;
+        // 排队等待的最长时间（毫秒）
+        private Long waitTimeout;
+    }
+}
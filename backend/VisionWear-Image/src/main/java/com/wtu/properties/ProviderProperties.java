@@ -0,0 +1,57 @@
+package com.wtu.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 图像生成厂商配置
+ * 绑定Nacos中的vision.doubao/aliyun/tencent/ttapi，配置变更刷新后由客户端注册表按需重建客户端
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "vision")
+public class ProviderProperties {
+    // 豆包（火山引擎）
+    private Doubao doubao = new Doubao();
+    // 通义万象（阿里云百炼）
+    private Aliyun aliyun = new Aliyun();
+    // 腾讯云混元生图
+    private Tencent tencent = new Tencent();
+    // TTAPI Midjourney
+    private Ttapi ttapi = new Ttapi();
+
+    @Data
+    public static class Doubao {
+        private String ak;
+        private String sk;
+        // 默认地域
+        private String region = "cn-north-1";
+    }
+
+    @Data
+    public static class Aliyun {
+        private String apiKey;
+    }
+
+    @Data
+    public static class Tencent {
+        private String secretId;
+        private String secretKey;
+        private String region = "ap-shanghai";
+        private String endpoint = "aiart.tencentcloudapi.com";
+    }
+
+    @Data
+    public static class Ttapi {
+        private String apiKey;
+        // 服务自有的回调地址（需公网可达），配置后融合任务进度由TTAPI主动推送
+        private String hookUrl;
+        // 回调校验令牌，拼接在回调地址的token参数上；与hookUrl同时配置才启用回调
+        private String hookToken;
+        // 本地记录超过该时长（毫秒）未更新时，查询接口补拉一次上游进度
+        private long staleAfter = 15000;
+        // 转存中状态的最长停留时间（毫秒），超时视为转存线程已随实例退出，退回处理中重新转存
+        private long finalizeTimeout = 300000;
+    }
+}
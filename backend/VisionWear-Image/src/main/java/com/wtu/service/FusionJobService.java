@@ -0,0 +1,77 @@
+package com.wtu.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.wtu.entity.ImageJob;
+import com.wtu.vo.ImageFusionVO;
+
+/**
+ * 图片融合（TTAPI Midjourney blend）任务服务
+ * 进度与结果由TTAPI回调写入任务表，查询接口只读本地记录
+ */
+public interface FusionJobService {
+
+    /**
+     * 登记一个已提交到TTAPI的融合任务
+     *
+     * @param taskId TTAPI返回的jobId
+     * @param userId 用户ID
+     */
+    void register(String taskId, Long userId);
+
+    /**
+     * 生成提交给TTAPI的回调地址
+     *
+     * @return 服务自有的回调地址，回调地址或令牌未配置时返回null
+     */
+    String hookUrl();
+
+    /**
+     * 校验回调令牌
+     *
+     * @param token 回调地址上携带的令牌
+     * @return 是否合法，回调未启用（地址或令牌未配置）时一律不合法
+     */
+    boolean verifyHookToken(String token);
+
+    /**
+     * 处理TTAPI推送的任务状态，结构与fetch接口的响应一致
+     *
+     * @param payload 回调内容
+     */
+    void handleCallback(JsonNode payload);
+
+    /**
+     * 读取融合任务的当前状态
+     *
+     * @param taskId TTAPI的jobId
+     * @param userId 用户ID
+     * @return 任务状态，本地没有记录时返回null
+     */
+    ImageFusionVO getFusion(String taskId, Long userId);
+
+    /**
+     * 补登记本服务未记录的任务（如升级前提交的任务）并查询一次上游，
+     * 之后与已登记任务一样只转存一次、从本地记录读取结果
+     *
+     * @param taskId TTAPI的jobId
+     * @param userId 用户ID
+     * @return 任务状态
+     */
+    ImageFusionVO adopt(String taskId, Long userId);
+
+    /**
+     * 本地记录长时间未更新时在后台补拉一次上游进度，回调丢失或未配置时兜底；
+     * 方法本身不访问上游，可在轮询线程上调用
+     *
+     * @param job 融合任务记录
+     */
+    void refreshIfStale(ImageJob job);
+
+    /**
+     * 直接向TTAPI查询任务状态
+     *
+     * @param taskId TTAPI的jobId
+     * @return fetch接口的响应
+     */
+    JsonNode fetch(String taskId);
+}
@@ -0,0 +1,46 @@
+package com.wtu.service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 生成结果缓存服务
+ * 相同用户以相同厂商、模型、提示词和参数重复提交时直接返回上次的结果，
+ * 同时在途的相同请求合并为一次厂商调用
+ */
+public interface GenerationCacheService {
+
+    /**
+     * 命中缓存时返回缓存结果，否则执行生成（相同请求在途时等待其结果）
+     *
+     * @param provider  厂商标识
+     * @param request   请求参数，参与缓存key计算
+     * @param userId    用户ID
+     * @param generator 实际的生成调用，返回图像ID列表
+     * @return 图像ID列表
+     */
+    List<String> getOrGenerate(String provider, Object request, Long userId, Supplier<List<String>> generator);
+
+    /**
+     * 设置用户是否使用生成结果缓存
+     *
+     * @param userId  用户ID
+     * @param enabled false表示该用户每次都重新生成
+     */
+    void setEnabled(Long userId, boolean enabled);
+
+    /**
+     * 查询用户是否使用生成结果缓存
+     *
+     * @param userId 用户ID
+     * @return 是否启用
+     */
+    boolean isEnabled(Long userId);
+
+    /**
+     * 图像被删除后清除包含它的缓存结果，避免命中时返回已删除的图像
+     *
+     * @param imageId 图像ID
+     */
+    void evictByImage(String imageId);
+}
@@ -0,0 +1,43 @@
+package com.wtu.service;
+
+import com.wtu.entity.Image;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 图片衍生尺寸服务
+ * 原图保存后在独立线程池中生成缩略图和中图，存放在原图旁边并记录到image表
+ */
+public interface ImageDerivativeService {
+
+    // 尺寸提示
+    String SIZE_THUMB = "thumb";
+    String SIZE_MEDIUM = "medium";
+    String SIZE_ORIGINAL = "original";
+
+    /**
+     * 提交一张已保存的图片，异步生成衍生尺寸
+     *
+     * @param image 图片记录
+     * @return 生成完成时带上衍生图URL的记录；队列已满被跳过时不会完成
+     */
+    CompletableFuture<Image> submit(Image image);
+
+    /**
+     * 按尺寸提示选择URL，对应尺寸尚未生成时返回原图
+     *
+     * @param image    图片记录
+     * @param sizeHint 尺寸提示（thumb/medium/original），为空时返回原图
+     * @return 图片URL
+     */
+    String selectUrl(Image image, String sizeHint);
+
+    /**
+     * 由原图对象名推出衍生图对象名，回收原图时一并删除
+     *
+     * @param objectName 原图对象名
+     * @param size       尺寸（thumb/medium）
+     * @return 衍生图对象名
+     */
+    String derivativeObjectName(String objectName, String size);
+}
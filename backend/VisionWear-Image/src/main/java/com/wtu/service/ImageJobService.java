@@ -0,0 +1,44 @@
+package com.wtu.service;
+
+import com.wtu.vo.ImageJobVO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 图像生成任务服务
+ * 异步任务提交后立即返回任务ID，由共享的定时轮询器批量推进
+ */
+public interface ImageJobService {
+
+    /**
+     * 登记一个已提交到豆包的异步任务
+     *
+     * @param userId 用户ID
+     * @param reqKey 豆包服务标识
+     * @param taskId 豆包返回的任务ID
+     * @return 任务状态
+     */
+    ImageJobVO createDoubaoJob(Long userId, String reqKey, String taskId);
+
+    /**
+     * 按任务ID查询任务状态
+     *
+     * @param jobId  任务ID
+     * @param userId 用户ID
+     * @return 任务状态
+     */
+    ImageJobVO getJob(String jobId, Long userId);
+
+    /**
+     * 等待任务结束，不占用调用线程
+     *
+     * @param jobId 任务ID
+     * @return 任务结束（成功或失败）时完成的Future
+     */
+    CompletableFuture<ImageJobVO> awaitJob(String jobId);
+
+    /**
+     * 推进一批到期的处理中任务，由定时器调用
+     */
+    void pollPendingJobs();
+}
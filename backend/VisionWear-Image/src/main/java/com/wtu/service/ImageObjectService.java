@@ -0,0 +1,54 @@
+package com.wtu.service;
+
+import com.wtu.entity.ImageObject;
+
+import java.io.IOException;
+
+/**
+ * 按内容寻址的图片对象存储
+ * 以内容SHA-256为键维护OSS对象索引，相同内容只上传一次，按引用计数回收
+ */
+public interface ImageObjectService {
+
+    /**
+     * 上传到指定对象名，返回访问URL
+     */
+    @FunctionalInterface
+    interface ObjectUploader {
+        String upload(String objectName) throws IOException;
+    }
+
+    /**
+     * 引用内容对应的对象，不存在时才调用uploader上传
+     * 对象正在被回收时改为上传一份不进索引的独立对象，此时返回的contentHash为空
+     *
+     * @param contentHash 内容SHA-256
+     * @param extension   对象扩展名，如".png"
+     * @param uploader    上传动作
+     * @return 被引用的对象
+     */
+    ImageObject retainOrUpload(String contentHash, String extension, ObjectUploader uploader) throws IOException;
+
+    /**
+     * 登记一个已经上传完成、边上传边算出哈希的对象
+     * 相同内容已存在时删除刚上传的对象并引用已有对象
+     *
+     * @param contentHash 内容SHA-256
+     * @param objectName  刚上传的对象名
+     * @param imageUrl    刚上传的对象URL
+     * @return 被引用的对象，无法登记时contentHash为空
+     */
+    ImageObject adopt(String contentHash, String objectName, String imageUrl);
+
+    /**
+     * 释放一次引用，计数归零的对象过了保留期后由回收任务删除
+     *
+     * @param contentHash 内容SHA-256
+     */
+    void release(String contentHash);
+
+    /**
+     * 回收一批无引用的对象，由定时器调用
+     */
+    void collectGarbage();
+}
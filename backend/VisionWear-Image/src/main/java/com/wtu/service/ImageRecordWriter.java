@@ -0,0 +1,41 @@
+package com.wtu.service;
+
+import com.wtu.entity.Image;
+
+import java.util.function.Consumer;
+
+/**
+ * 图片记录写入器
+ * 记录先进入本地缓冲，按数量或时间合并成多行插入；写入前可通过本地缓冲读到
+ */
+public interface ImageRecordWriter {
+
+    /**
+     * 提交一条图片记录，返回后即可通过 {@link #getPending(String)} 读到
+     *
+     * @param image 图片记录
+     */
+    void write(Image image);
+
+    /**
+     * 读取已提交但尚未写入数据库的记录
+     *
+     * @param imageId 图片ID
+     * @return 未写入的记录，已写入或不存在时返回null
+     */
+    Image getPending(String imageId);
+
+    /**
+     * 修改尚未写入数据库的记录，修改会随记录一起写入
+     *
+     * @param imageId 图片ID
+     * @param updater 修改逻辑
+     * @return 记录仍在缓冲中并已修改时返回true；已写入或不存在时返回false，由调用方自行更新数据库
+     */
+    boolean updatePending(String imageId, Consumer<Image> updater);
+
+    /**
+     * 立即写出缓冲中的全部记录，写完后数据库中可见
+     */
+    void flush();
+}
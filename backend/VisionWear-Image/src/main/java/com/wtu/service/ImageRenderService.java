@@ -0,0 +1,42 @@
+package com.wtu.service;
+
+import java.nio.file.Path;
+
+/**
+ * 按需缩放渲染服务
+ * 渲染结果按(图片ID, 宽, 高, 适配方式)缓存在本地磁盘，超出容量后淘汰最久未访问的结果
+ */
+public interface ImageRenderService {
+
+    /**
+     * 渲染结果
+     *
+     * @param file 磁盘缓存文件
+     * @param etag 强校验ETag
+     * @param size 文件字节数
+     */
+    record Rendition(Path file, String etag, long size) {
+    }
+
+    /**
+     * 计算渲染参数对应的ETag，不需要渲染即可用于条件请求判断
+     *
+     * @param imageId 图片ID
+     * @param width   目标宽度，0表示按高度等比
+     * @param height  目标高度，0表示按宽度等比
+     * @param fit     适配方式（contain/cover/fill）
+     * @return 强校验ETag
+     */
+    String etag(String imageId, int width, int height, String fit);
+
+    /**
+     * 获取渲染结果，缓存未命中时渲染；同一参数的并发请求只渲染一次
+     *
+     * @param imageId 图片ID
+     * @param width   目标宽度，0表示按高度等比
+     * @param height  目标高度，0表示按宽度等比
+     * @param fit     适配方式（contain/cover/fill）
+     * @return 渲染结果
+     */
+    Rendition render(String imageId, int width, int height, String fit);
+}
@@ -1,9 +1,13 @@
 package com.wtu.service;
 import com.wtu.dto.image.*;
+import com.wtu.vo.GalleryPageVO;
 import com.wtu.vo.ImageFusionVO;
+import com.wtu.vo.ImageJobVO;
 import com.wtu.vo.DoodleToImageByTYVO;
 import com.wtu.vo.SketchToImageByTYVO;
 import com.wtu.vo.SketchToImageVO;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -31,12 +35,13 @@ public interface ImageService {
 
     /**
      * 图像生成图像 (Image-to-Image)
+     * 提交任务后立即返回，结果通过任务ID查询
      *
      * @param request 以图生图请求
      * @param userId  用户ID
-     * @return 图像生成响应
+     * @return 图像生成任务
      */
-    List<String> imageToImage(ImageToImageDTO request, Long userId) throws Exception;
+    ImageJobVO imageToImage(ImageToImageDTO request, Long userId) throws Exception;
 
     /**
      * 线稿生成图像 (Sketch-to-Image)
@@ -90,9 +95,29 @@ public interface ImageService {
      *
      * @param userId 用户ID
      * @return 图像URL列表
+     * @deprecated 结果随历史无限增长，改用 {@link #getGallery(Long, String, Integer)}
      */
+    @Deprecated
     List<String> getAllImageUrls(Long userId);
 
+    /**
+     * 按创建时间倒序游标分页查询用户图库
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，首页传空
+     * @param size   每页数量，为空时使用默认值，超过上限按上限处理
+     * @return 本页图片及下一页游标
+     */
+    GalleryPageVO getGallery(Long userId, String cursor, Integer size);
+
+    /**
+     * 以JSON数组的形式流式导出用户全部图片，逐批查询逐批写出，不在内存中聚合
+     *
+     * @param userId 用户ID
+     * @param out    输出流，由调用方负责关闭
+     */
+    void exportGallery(Long userId, OutputStream out) throws IOException;
+
     /**
      * 豆包模型风格转换功能
      *
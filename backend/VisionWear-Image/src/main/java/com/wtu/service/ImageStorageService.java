@@ -1,7 +1,5 @@
 package com.wtu.service;
 
-import org.springframework.cache.annotation.Cacheable;
-
 import java.util.List;
 
 /**
@@ -21,6 +19,15 @@ public interface ImageStorageService {
      */
     String getImageUrl(String imageId);
 
+    /**
+     * 按尺寸提示获取图像URL，对应尺寸尚未生成时返回原图
+     *
+     * @param imageId 图像ID
+     * @param sizeHint 尺寸提示（thumb/medium/original）
+     * @return 图像URL
+     */
+    String getImageUrl(String imageId, String sizeHint);
+
     /**
      * 保存Base64编码的图像到阿里云OSS
      *
@@ -39,4 +46,56 @@ public interface ImageStorageService {
      * @return 生成的图像ID
      */
     String saveImageFromUrl(String imageUrl, Long userId);
+
+    /**
+     * 并行保存多张Base64图像，返回的ID顺序与输入一致
+     *
+     * @param base64Images Base64编码的图像列表
+     * @param userId 用户ID
+     * @return 生成的图像ID列表
+     */
+    List<String> saveBase64Images(List<String> base64Images, Long userId);
+
+    /**
+     * 并行从多个URL下载图像并保存，返回的ID顺序与输入一致
+     *
+     * @param imageUrls 图像URL列表
+     * @param userId 用户ID
+     * @return 生成的图像ID列表
+     */
+    List<String> saveImagesFromUrls(List<String> imageUrls, Long userId);
+
+    /**
+     * 上传用户文件并返回访问URL，开启去重时相同内容只存一份
+     *
+     * @param bytes 文件内容
+     * @param extension 扩展名，如".png"
+     * @return 文件访问URL
+     */
+    String uploadFile(byte[] bytes, String extension);
+
+    /**
+     * 删除用户图片，释放其引用的OSS对象
+     *
+     * @param imageId 图像ID
+     * @param userId 用户ID
+     */
+    void deleteImage(String imageId, Long userId);
+
+    /**
+     * 校验图片存在、未删除且属于该用户，不满足时抛出业务异常
+     *
+     * @param imageId 图像ID
+     * @param userId 用户ID
+     */
+    void checkOwner(String imageId, Long userId);
+
+    /**
+     * 登记一张已由客户端直传到OSS的图片
+     *
+     * @param imageUrl 图片访问URL
+     * @param userId 用户ID
+     * @return 生成的图像ID
+     */
+    String registerImage(String imageUrl, Long userId);
 }
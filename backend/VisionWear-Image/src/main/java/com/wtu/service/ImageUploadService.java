@@ -0,0 +1,91 @@
+package com.wtu.service;
+
+import com.wtu.dto.image.PresignUploadDTO;
+import com.wtu.dto.image.UploadSessionDTO;
+import com.wtu.vo.GalleryImageVO;
+import com.wtu.vo.PresignUploadVO;
+import com.wtu.vo.UploadSessionVO;
+
+import java.io.InputStream;
+
+/**
+ * 客户端直传OSS服务
+ * 直传：服务端只签发限时的PUT地址并在上传完成后登记图片，文件内容不经过网关和图片服务
+ * 分片上传：必须经过服务端的上传按分片流式转入OSS分片上传，会话状态存在Redis中可断点续传
+ */
+public interface ImageUploadService {
+
+    /**
+     * 签发直传地址
+     *
+     * @param request 文件类型与大小
+     * @param userId  用户ID
+     * @return 直传凭证
+     */
+    PresignUploadVO presign(PresignUploadDTO request, Long userId);
+
+    /**
+     * 确认直传完成：校验对象大小与类型后登记图片记录
+     *
+     * @param uploadId 上传凭证ID
+     * @param userId   用户ID
+     * @return 登记的图片
+     */
+    GalleryImageVO complete(String uploadId, Long userId);
+
+    /**
+     * 删除签发后一直未确认的对象，由定时器调用
+     */
+    void cleanOrphans();
+
+    /**
+     * 创建分片上传会话，服务端决定分片大小
+     *
+     * @param request 文件类型与总大小
+     * @param userId  用户ID
+     * @return 会话状态
+     */
+    UploadSessionVO createSession(UploadSessionDTO request, Long userId);
+
+    /**
+     * 查询会话状态，断点续传时据此跳过已上传的分片
+     *
+     * @param sessionId 会话ID
+     * @param userId    用户ID
+     * @return 会话状态
+     */
+    UploadSessionVO getSession(String sessionId, Long userId);
+
+    /**
+     * 上传一个分片，数据流直接转给OSS；同一分片重复上传以最后一次为准
+     *
+     * @param sessionId     会话ID
+     * @param partNumber    分片序号，从1开始
+     * @param inputStream   分片数据流
+     * @param contentLength 分片字节数
+     * @param userId        用户ID
+     */
+    void uploadPart(String sessionId, int partNumber, InputStream inputStream, long contentLength, Long userId);
+
+    /**
+     * 合并全部分片并登记图片
+     *
+     * @param sessionId 会话ID
+     * @param userId    用户ID
+     * @return 登记的图片
+     */
+    GalleryImageVO completeSession(String sessionId, Long userId);
+
+    /**
+     * 放弃上传，释放已上传的分片
+     *
+     * @param sessionId 会话ID
+     * @param userId    用户ID
+     */
+    void abortSession(String sessionId, Long userId);
+
+    /**
+     * 中止长时间没有进展的会话，由定时器调用
+     */
+    void cleanAbandonedSessions();
+}
@@ -0,0 +1,20 @@
+package com.wtu.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 任务进度推送服务
+ * 同一任务的所有连接共享一个服务端观察者，状态变化时推送，结束后关闭连接
+ */
+public interface JobEventService {
+
+    /**
+     * 订阅任务进度
+     *
+     * @param jobId       任务ID（图生图任务ID或融合任务的TTAPI jobId）
+     * @param userId      用户ID
+     * @param lastEventId 重连时浏览器携带的Last-Event-ID，与当前状态一致时不重复推送
+     * @return SSE连接
+     */
+    SseEmitter subscribe(String jobId, Long userId, String lastEventId);
+}
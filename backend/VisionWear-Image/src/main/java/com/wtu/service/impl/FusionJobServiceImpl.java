@@ -0,0 +1,388 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.wtu.config.ProviderBulkheads;
+import com.wtu.config.ProviderClientRegistry;
+import com.wtu.entity.ImageJob;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.mapper.ImageJobMapper;
+import com.wtu.properties.ProviderProperties;
+import com.wtu.service.FusionJobService;
+import com.wtu.service.ImageStorageService;
+import com.wtu.vo.ImageFusionVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FusionJobServiceImpl implements FusionJobService {
+
+    private static final String FETCH_URL = "https://api.ttapi.io/midjourney/v1/fetch";
+
+    private final ImageJobMapper imageJobMapper;
+    private final ImageStorageService imageStorageService;
+    private final ProviderProperties providerProperties;
+    private final RestTemplate restTemplate;
+    private final ProviderBulkheads providerBulkheads;
+
+    // 结果转存线程池，回调请求只做状态登记，不等待下载上传
+    private ExecutorService finalizeExecutor;
+    // 后台补拉线程池，SSE轮询线程只读库，访问上游的补拉交给这里
+    private ThreadPoolExecutor refreshExecutor;
+    // 正在后台补拉的任务，同一任务不重复排队
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        finalizeExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "fusion-finalize-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger refreshSeq = new AtomicInteger();
+        // 队列满时直接丢弃，下一轮轮询还会再次提交
+        refreshExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), r -> {
+            Thread thread = new Thread(r, "fusion-refresh-" + refreshSeq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        finalizeExecutor.shutdown();
+        refreshExecutor.shutdown();
+    }
+
+    @Override
+    public void register(String taskId, Long userId) {
+        ExceptionUtils.requireNonEmpty(taskId, "任务ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        // 融合任务直接以TTAPI的jobId作为主键，回调和查询都按主键读写
+        LocalDateTime now = LocalDateTime.now();
+        imageJobMapper.insert(ImageJob.builder()
+                .jobId(taskId)
+                .userId(userId)
+                .provider(ProviderClientRegistry.PROVIDER_TTAPI)
+                .taskId(taskId)
+                .status(ImageJob.STATUS_RUNNING)
+                .progress(0)
+                .pollCount(0)
+                .createTime(now)
+                .updateTime(now)
+                .build());
+    }
+
+    @Override
+    public String hookUrl() {
+        ProviderProperties.Ttapi ttapi = providerProperties.getTtapi();
+        // 回调入口在网关上免鉴权，没有令牌就无法识别伪造回调，此时不启用回调，只靠查询补拉
+        if (!StringUtils.hasText(ttapi.getHookUrl()) || !StringUtils.hasText(ttapi.getHookToken())) {
+            return null;
+        }
+        return UriComponentsBuilder.fromHttpUrl(ttapi.getHookUrl())
+                .queryParam("token", ttapi.getHookToken())
+                .toUriString();
+    }
+
+    @Override
+    public boolean verifyHookToken(String token) {
+        ProviderProperties.Ttapi ttapi = providerProperties.getTtapi();
+        // 未同时配置回调地址和令牌时回调未启用，拒绝所有回调请求
+        if (!StringUtils.hasText(ttapi.getHookUrl()) || !StringUtils.hasText(ttapi.getHookToken())) {
+            return false;
+        }
+        String expected = ttapi.getHookToken();
+        return token != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void handleCallback(JsonNode payload) {
+        String taskId = payload.path("jobId").asText(payload.path("data").path("jobId").asText(""));
+        if (taskId.isEmpty()) {
+            log.warn("融合回调缺少jobId: {}", payload);
+            return;
+        }
+        ImageJob job = imageJobMapper.selectById(taskId);
+        if (job == null) {
+            log.warn("收到未登记的融合任务回调: {}", taskId);
+            return;
+        }
+        apply(job, payload, finalizeExecutor);
+    }
+
+    @Override
+    public ImageFusionVO getFusion(String taskId, Long userId) {
+        ExceptionUtils.requireNonEmpty(taskId, "任务ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        ImageJob job = imageJobMapper.selectById(taskId);
+        if (job == null) {
+            return null;
+        }
+        if (!job.getUserId().equals(userId)) {
+            throw new BusinessException("无权查看此任务");
+        }
+
+        // 查询请求在当前线程完成转存，本次调用即可拿到结果
+        if (refresh(job, Runnable::run)) {
+            job = imageJobMapper.selectById(taskId);
+        }
+        return toVO(job);
+    }
+
+    @Override
+    public ImageFusionVO adopt(String taskId, Long userId) {
+        ExceptionUtils.requireNonEmpty(taskId, "任务ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        // 先向上游确认任务存在且未失败再登记，无效ID不会留下永远处于处理中的记录
+        JsonNode payload = fetch(taskId);
+        String upstreamJobId = payload.path("jobId").asText(payload.path("data").path("jobId").asText(""));
+        if ("FAILED".equals(payload.path("status").asText()) || !taskId.equals(upstreamJobId)) {
+            throw new BusinessException("任务不存在或已失败: " + payload.path("message").asText(""));
+        }
+
+        try {
+            register(taskId, userId);
+        } catch (DuplicateKeyException e) {
+            // 并发查询已由其他请求登记，按已登记任务读取
+            return getFusion(taskId, userId);
+        }
+
+        ImageJob job = imageJobMapper.selectById(taskId);
+        apply(job, payload, Runnable::run);
+        return toVO(imageJobMapper.selectById(taskId));
+    }
+
+    @Override
+    public void refreshIfStale(ImageJob job) {
+        // 只按已读出的记录判断是否过期，不过期时不产生任何IO
+        boolean stale = job.getStatus() == ImageJob.STATUS_FINALIZING && isStale(job, providerProperties.getTtapi().getFinalizeTimeout())
+                || job.getStatus() == ImageJob.STATUS_RUNNING
+                && isStale(job, providerProperties.getTtapi().getStaleAfter());
+        if (!stale || !refreshing.add(job.getJobId())) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(job, finalizeExecutor);
+                } finally {
+                    refreshing.remove(job.getJobId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(job.getJobId());
+        }
+    }
+
+    @Override
+    public JsonNode fetch(String taskId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("TT-API-KEY", providerProperties.getTtapi().getApiKey());
+
+        Map<String, String> body = new HashMap<>();
+        body.put("jobId", taskId);
+
+        HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
+        ResponseEntity<JsonNode> response;
+        try {
+            response = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TTAPI,
+                    () -> restTemplate.postForEntity(FETCH_URL, request, JsonNode.class));
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException("查询融合任务失败: " + e.getMessage());
+        }
+
+        JsonNode responseJson = response.getBody();
+        if (responseJson == null) {
+            throw new BusinessException("无响应");
+        }
+        return responseJson;
+    }
+
+    /**
+     * 按回调/查询结果推进任务：失败、进度更新或出图转存
+     *
+     * @param executor 执行转存的线程，回调和后台补拉用线程池，查询请求用当前线程
+     */
+    private void apply(ImageJob job, JsonNode payload, Executor executor) {
+        if ("FAILED".equals(payload.path("status").asText())) {
+            fail(job, payload.path("message").asText("任务失败"));
+            return;
+        }
+
+        JsonNode data = payload.path("data");
+        int progress = parseProgress(data.path("progress").asText("0"));
+        String cdnImage = data.path("cdnImage").asText("");
+        if (progress >= 100 && !cdnImage.isEmpty()) {
+            finalizeOnce(job, cdnImage, executor);
+        } else {
+            updateProgress(job, progress);
+        }
+    }
+
+    /**
+     * 进度只增不减，乱序到达的旧回调不会覆盖新进度
+     */
+    private void updateProgress(ImageJob job, int progress) {
+        imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getProgress, progress)
+                .set(ImageJob::getUpdateTime, LocalDateTime.now())
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .le(ImageJob::getProgress, progress));
+    }
+
+    private void fail(ImageJob job, String message) {
+        imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getStatus, ImageJob.STATUS_FAILED)
+                .set(ImageJob::getErrorMsg, message)
+                .set(ImageJob::getUpdateTime, LocalDateTime.now())
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING));
+        log.info("融合任务 {} 失败: {}", job.getJobId(), message);
+    }
+
+    /**
+     * 通过条件更新抢占转存：只有从处理中切换到转存中的那一次调用会下载上传，
+     * 重复回调、并发查询都不会再次转存
+     */
+    private void finalizeOnce(ImageJob job, String cdnImage, Executor executor) {
+        int rows = imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getStatus, ImageJob.STATUS_FINALIZING)
+                .set(ImageJob::getProgress, 100)
+                .set(ImageJob::getUpdateTime, LocalDateTime.now())
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING));
+        if (rows == 0) {
+            return;
+        }
+
+        executor.execute(() -> {
+            try {
+                String imageId = imageStorageService.saveImageFromUrl(cdnImage, job.getUserId());
+                imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                        .set(ImageJob::getStatus, ImageJob.STATUS_SUCCEEDED)
+                        .set(ImageJob::getImageIds, imageId)
+                        .set(ImageJob::getUpdateTime, LocalDateTime.now())
+                        .eq(ImageJob::getJobId, job.getJobId())
+                        .eq(ImageJob::getStatus, ImageJob.STATUS_FINALIZING));
+                log.info("融合任务 {} 结果已转存: {}", job.getJobId(), imageId);
+            } catch (Exception e) {
+                log.error("融合任务 {} 结果转存失败", job.getJobId(), e);
+                releaseFinalizing(job);
+            }
+        });
+    }
+
+    /**
+     * 转存超时的任务退回处理中；处理中且过期的任务补拉一次上游
+     *
+     * @return 是否改动了任务记录
+     */
+    private boolean refresh(ImageJob job, Executor executor) {
+        if (job.getStatus() == ImageJob.STATUS_FINALIZING && isStale(job, providerProperties.getTtapi().getFinalizeTimeout())) {
+            releaseFinalizing(job);
+            return true;
+        }
+
+        // 回调可能丢失或未配置，本地记录长时间未更新时补拉一次上游
+        if (job.getStatus() == ImageJob.STATUS_RUNNING
+                && isStale(job, providerProperties.getTtapi().getStaleAfter()) && claimRefresh(job)) {
+            try {
+                apply(job, fetch(job.getTaskId()), executor);
+            } catch (Exception e) {
+                log.warn("补拉融合任务 {} 进度失败: {}", job.getJobId(), e.getMessage());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 退回处理中并标记为过期，下一次回调或查询会重新转存
+     */
+    private void releaseFinalizing(ImageJob job) {
+        imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .set(ImageJob::getUpdateTime, job.getCreateTime())
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_FINALIZING));
+    }
+
+    private boolean isStale(ImageJob job, long millis) {
+        return job.getUpdateTime().plus(Duration.ofMillis(millis)).isBefore(LocalDateTime.now());
+    }
+
+    /**
+     * 先刷新update_time再补拉，并发查询同一任务时只有一个请求访问上游
+     */
+    private boolean claimRefresh(ImageJob job) {
+        int rows = imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getUpdateTime, LocalDateTime.now())
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .eq(ImageJob::getUpdateTime, job.getUpdateTime()));
+        return rows > 0;
+    }
+
+    private ImageFusionVO toVO(ImageJob job) {
+        if (job.getStatus() == ImageJob.STATUS_FAILED) {
+            throw new BusinessException("任务失败: " + job.getErrorMsg());
+        }
+
+        ImageFusionVO.ImageFusionVOBuilder builder = ImageFusionVO.builder()
+                .requestId(UUID.randomUUID().toString())
+                .jobId(job.getTaskId())
+                .generationTimeMs(0);
+
+        if (job.getStatus() != ImageJob.STATUS_SUCCEEDED) {
+            // 转存完成前不报告100%，调用方以100%作为结果可读的信号
+            return builder.progress(Math.min(job.getProgress(), 99)).build();
+        }
+
+        List<ImageFusionVO.GeneratedImage> images = new ArrayList<>();
+        for (String imageId : job.getImageIds().split(",")) {
+            images.add(ImageFusionVO.GeneratedImage.builder()
+                    .imageId(imageId)
+                    .imageUrl(imageStorageService.getImageUrl(imageId))
+                    .build());
+        }
+        return builder.images(images).progress(100).build();
+    }
+
+    private static int parseProgress(String progress) {
+        String digits = progress.replaceAll("[^0-9]", "");
+        return digits.isEmpty() ? 0 : Math.min(Integer.parseInt(digits), 100);
+    }
+}
@@ -0,0 +1,171 @@
+package com.wtu.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.properties.GenerationCacheProperties;
+import com.wtu.service.GenerationCacheService;
+import com.wtu.utils.RedisUtil;
+import com.wtu.utils.SHA256;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationCacheServiceImpl implements GenerationCacheService {
+
+    private static final String RESULT_KEY_PREFIX = "image:gen:result:";
+    private static final String OPT_OUT_KEY = "image:gen:opt-out";
+    // 图像ID -> 包含它的缓存key，删除图像时据此清除缓存
+    private static final String IMAGE_INDEX_KEY_PREFIX = "image:gen:by-image:";
+
+    private final RedisUtil redisUtil;
+    private final GenerationCacheProperties cacheProperties;
+    private final MeterRegistry meterRegistry;
+
+    // 本实例上在途的生成请求，相同key的后来者等待同一个Future
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public List<String> getOrGenerate(String provider, Object request, Long userId,
+                                      Supplier<List<String>> generator) {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        if (!cacheProperties.isEnabled() || !isEnabled(userId)) {
+            count("bypass");
+            return generator.get();
+        }
+
+        String key = RESULT_KEY_PREFIX + canonicalHash(provider, request, userId);
+        List<String> cached = readCache(key);
+        if (cached != null) {
+            count("hit");
+            return cached;
+        }
+
+        CompletableFuture<List<String>> future = new CompletableFuture<>();
+        CompletableFuture<List<String>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            count("coalesced");
+            return await(existing);
+        }
+
+        count("miss");
+        try {
+            List<String> imageIds = generator.get();
+            writeCache(key, imageIds);
+            future.complete(imageIds);
+            return imageIds;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void setEnabled(Long userId, boolean enabled) {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        if (enabled) {
+            redisUtil.sRemove(OPT_OUT_KEY, userId.toString());
+        } else {
+            redisUtil.sAdd(OPT_OUT_KEY, userId.toString());
+        }
+    }
+
+    @Override
+    public boolean isEnabled(Long userId) {
+        try {
+            return !Boolean.TRUE.equals(redisUtil.sIsMember(OPT_OUT_KEY, userId.toString()));
+        } catch (Exception e) {
+            log.warn("读取生成缓存开关失败，按未启用处理: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void evictByImage(String imageId) {
+        try {
+            Object key = redisUtil.get(IMAGE_INDEX_KEY_PREFIX + imageId);
+            if (key instanceof String cacheKey) {
+                redisUtil.delete(cacheKey);
+            }
+            redisUtil.delete(IMAGE_INDEX_KEY_PREFIX + imageId);
+        } catch (Exception e) {
+            log.warn("清除图像 {} 的生成结果缓存失败: {}", imageId, e.getMessage());
+        }
+    }
+
+    /**
+     * 计算规范化的请求哈希：字段按名称排序后序列化，与字段声明顺序、Map顺序无关
+     * key中包含用户ID，缓存只在同一用户内命中，图像记录不会跨用户共享
+     */
+    private String canonicalHash(String provider, Object request, Long userId) {
+        String canonical = provider + "|" + userId + "|"
+                + JSON.toJSONString(request, SerializerFeature.SortField, SerializerFeature.MapSortField);
+        return SHA256.sha256(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> await(CompletableFuture<List<String>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof BusinessException) {
+                throw (BusinessException) cause;
+            }
+            throw new BusinessException("图像生成失败: " + cause.getMessage());
+        }
+    }
+
+    /**
+     * 缓存值为逗号拼接的图像ID，Redis不可用时视为未命中
+     */
+    private List<String> readCache(String key) {
+        try {
+            Object value = redisUtil.get(key);
+            if (value instanceof String ids && !ids.isEmpty()) {
+                return new ArrayList<>(Arrays.asList(ids.split(",")));
+            }
+        } catch (Exception e) {
+            log.warn("读取生成结果缓存失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeCache(String key, List<String> imageIds) {
+        if (imageIds == null || imageIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisUtil.set(key, String.join(",", imageIds), cacheProperties.getTtl(), TimeUnit.SECONDS);
+            for (String imageId : imageIds) {
+                redisUtil.set(IMAGE_INDEX_KEY_PREFIX + imageId, key, cacheProperties.getTtl(), TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("写入生成结果缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("image.generation.cache")
+                .description("生成结果缓存命中情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,168 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.wtu.entity.Image;
+import com.wtu.mapper.ImageMapper;
+import com.wtu.properties.ImageDerivativeProperties;
+import com.wtu.service.ImageDerivativeService;
+import com.wtu.service.ImageRecordWriter;
+import com.wtu.utils.AliOssUtil;
+import com.wtu.utils.ImageScaler;
+import com.wtu.utils.UpstreamHttpClients;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private final ImageMapper imageMapper;
+    private final AliOssUtil aliOssUtil;
+    private final UpstreamHttpClients upstreamHttpClients;
+    private final ImageRecordWriter imageRecordWriter;
+    private final ImageDerivativeProperties properties;
+
+    // 衍生图生成线程池，有界且与请求线程隔离
+    private ExecutorService derivativeExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        derivativeExecutor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-derivative-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 衍生图不是必需的，排满时丢弃，访问时回退到原图
+                (r, executor) -> log.warn("衍生图队列已满，跳过本次生成"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        derivativeExecutor.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<Image> submit(Image image) {
+        if (!properties.isEnabled() || image.getImageUrl() == null) {
+            return CompletableFuture.completedFuture(image);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return generate(image);
+            } catch (Exception e) {
+                log.warn("生成图片 {} 的衍生图失败: {}", image.getImageId(), e.getMessage());
+                return image;
+            }
+        }, derivativeExecutor);
+    }
+
+    @Override
+    public String selectUrl(Image image, String sizeHint) {
+        if (SIZE_THUMB.equals(sizeHint) && image.getThumbUrl() != null) {
+            return image.getThumbUrl();
+        }
+        if (SIZE_MEDIUM.equals(sizeHint) && image.getMediumUrl() != null) {
+            return image.getMediumUrl();
+        }
+        return image.getImageUrl();
+    }
+
+    @Override
+    public String derivativeObjectName(String objectName, String size) {
+        int dot = objectName.lastIndexOf('.');
+        String base = dot > 0 ? objectName.substring(0, dot) : objectName;
+        return base + "_" + size + ".jpg";
+    }
+
+    private Image generate(Image image) throws IOException {
+        // 共用同一对象的图片已经生成过时直接复用
+        if (image.getContentHash() != null) {
+            Image sibling = imageMapper.selectOne(new LambdaQueryWrapper<Image>()
+                    .select(Image::getThumbUrl, Image::getMediumUrl)
+                    .eq(Image::getContentHash, image.getContentHash())
+                    .isNotNull(Image::getThumbUrl)
+                    .last("LIMIT 1"));
+            if (sibling != null) {
+                return record(image, sibling.getThumbUrl(), sibling.getMediumUrl());
+            }
+        }
+
+        BufferedImage original = download(image.getImageUrl());
+        // 对象名即URL路径，直传的图片带有目录前缀
+        String objectName = URI.create(image.getImageUrl()).getPath().substring(1);
+        String thumbUrl = store(original, properties.getThumbSize(), derivativeObjectName(objectName, SIZE_THUMB));
+        String mediumUrl = store(original, properties.getMediumSize(), derivativeObjectName(objectName, SIZE_MEDIUM));
+        return record(image, thumbUrl, mediumUrl);
+    }
+
+    private BufferedImage download(String imageUrl) throws IOException {
+        Request request = new Request.Builder().url(imageUrl).get().build();
+        try (Response response = upstreamHttpClients.forUrl(imageUrl).newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("HTTP状态码 " + response.code());
+            }
+            try (InputStream in = body.byteStream()) {
+                BufferedImage image = ImageScaler.read(in, properties.getMaxSourcePixels());
+                if (image == null) {
+                    throw new IOException("无法识别的图片格式");
+                }
+                return image;
+            }
+        }
+    }
+
+    /**
+     * 按最长边缩放并压缩成JPEG上传，原图比目标小时不放大
+     */
+    private String store(BufferedImage original, int maxEdge, String objectName) throws IOException {
+        byte[] bytes = ImageScaler.encodeJpeg(ImageScaler.scaleToMaxEdge(original, maxEdge), properties.getQuality());
+        return aliOssUtil.upload(bytes, objectName);
+    }
+
+    private Image record(Image image, String thumbUrl, String mediumUrl) {
+        // 记录还在写入缓冲中时直接改缓冲里的记录，随批次一起写入；否则已落库，更新数据库
+        boolean buffered = imageRecordWriter.updatePending(image.getImageId(), pending -> {
+            pending.setThumbUrl(thumbUrl);
+            pending.setMediumUrl(mediumUrl);
+        });
+        if (!buffered) {
+            imageMapper.update(null, new LambdaUpdateWrapper<Image>()
+                    .set(Image::getThumbUrl, thumbUrl)
+                    .set(Image::getMediumUrl, mediumUrl)
+                    .eq(Image::getImageId, image.getImageId()));
+        }
+
+        return Image.builder()
+                .imageId(image.getImageId())
+                .userId(image.getUserId())
+                .imageUrl(image.getImageUrl())
+                .contentHash(image.getContentHash())
+                .thumbUrl(thumbUrl)
+                .mediumUrl(mediumUrl)
+                .createTime(image.getCreateTime())
+                .status(image.getStatus())
+                .build();
+    }
+}
@@ -0,0 +1,332 @@
+package com.wtu.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.volcengine.service.visual.IVisualService;
+import com.wtu.config.ProviderClientRegistry;
+import com.wtu.entity.ImageJob;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.mapper.ImageJobMapper;
+import com.wtu.properties.ImageJobProperties;
+import com.wtu.service.ImageJobService;
+import com.wtu.service.ImageStorageService;
+import com.wtu.utils.ModelUtils;
+import com.wtu.vo.ImageJobVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageJobServiceImpl implements ImageJobService {
+
+    private final ImageJobMapper imageJobMapper;
+    private final ImageStorageService imageStorageService;
+    private final ImageJobProperties jobProperties;
+    private final ProviderClientRegistry providerClientRegistry;
+
+    // 本实例上等待任务结束的调用方，同一任务的多个等待者共享一个Future
+    private final Map<String, CompletableFuture<ImageJobVO>> waiters = new ConcurrentHashMap<>();
+
+    private ExecutorService pollExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        pollExecutor = Executors.newFixedThreadPool(jobProperties.getPollThreads(), r -> {
+            Thread thread = new Thread(r, "image-job-poll-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pollExecutor.shutdown();
+    }
+
+    @Override
+    public ImageJobVO createDoubaoJob(Long userId, String reqKey, String taskId) {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        ExceptionUtils.requireNonEmpty(taskId, "任务ID不能为空");
+
+        LocalDateTime now = LocalDateTime.now();
+        ImageJob job = ImageJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .userId(userId)
+                .provider(ProviderClientRegistry.PROVIDER_DOUBAO)
+                .reqKey(reqKey)
+                .taskId(taskId)
+                .status(ImageJob.STATUS_RUNNING)
+                .progress(0)
+                .pollCount(0)
+                .nextPollTime(now.plus(Duration.ofMillis(jobProperties.getInitialDelay())).truncatedTo(ChronoUnit.SECONDS))
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        imageJobMapper.insert(job);
+
+        return toVO(job);
+    }
+
+    @Override
+    public ImageJobVO getJob(String jobId, Long userId) {
+        ExceptionUtils.requireNonEmpty(jobId, "任务ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        ImageJob job = imageJobMapper.selectById(jobId);
+        if (job == null) {
+            throw new BusinessException("任务不存在");
+        }
+        if (!job.getUserId().equals(userId)) {
+            throw new BusinessException("无权查看此任务");
+        }
+        return toVO(job);
+    }
+
+    @Override
+    public CompletableFuture<ImageJobVO> awaitJob(String jobId) {
+        // 同一任务的等待者共用一个Future，超过同步等待时长后移除，调用方已超时放弃时不再占用条目
+        CompletableFuture<ImageJobVO> future = waiters.computeIfAbsent(jobId, k -> {
+            CompletableFuture<ImageJobVO> created = new CompletableFuture<>();
+            created.orTimeout(jobProperties.getAwaitTimeout(), TimeUnit.MILLISECONDS)
+                    .whenComplete((vo, e) -> waiters.remove(k, created));
+            return created;
+        });
+
+        // 任务可能在注册等待之前就已经结束
+        ImageJob job = imageJobMapper.selectById(jobId);
+        if (job != null && job.getStatus() != ImageJob.STATUS_RUNNING) {
+            complete(job);
+        }
+        return future;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.image.job.tick:1000}")
+    public void pollPendingJobs() {
+        notifyFinishedWaiters();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ImageJob> dueJobs = imageJobMapper.selectList(new LambdaQueryWrapper<ImageJob>()
+                .eq(ImageJob::getProvider, ProviderClientRegistry.PROVIDER_DOUBAO)
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .le(ImageJob::getNextPollTime, now)
+                .orderByAsc(ImageJob::getNextPollTime)
+                .last("LIMIT " + jobProperties.getBatchSize()));
+        if (dueJobs.isEmpty()) {
+            return;
+        }
+
+        IVisualService visualService;
+        try {
+            visualService = providerClientRegistry.getVisualService();
+        } catch (Exception e) {
+            log.error("创建豆包VisualService失败，本轮跳过", e);
+            return;
+        }
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (ImageJob job : dueJobs) {
+            // 先认领再查询，多实例部署时同一任务只会被一个实例推进
+            if (!claim(job, now)) {
+                continue;
+            }
+            tasks.add(CompletableFuture.runAsync(() -> advance(job, visualService), pollExecutor));
+        }
+        // 等待本批结束再进入下一轮，避免批次重叠
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 查询一次厂商结果并推进任务状态
+     */
+    private void advance(ImageJob job, IVisualService visualService) {
+        try {
+            JSONObject taskRequest = new JSONObject();
+            taskRequest.put("req_key", job.getReqKey());
+            taskRequest.put("task_id", job.getTaskId());
+
+            JSONObject taskResponse = (JSONObject) visualService.cvSync2AsyncGetResult(taskRequest);
+            String status = ModelUtils.getFromJsonData(taskResponse, "status", String.class);
+
+            if ("done".equals(status)) {
+                List<String> base64 = ModelUtils.getBase64(taskResponse);
+                if (base64.isEmpty()) {
+                    finish(job, ImageJob.STATUS_FAILED, null, "获取图像结果失败");
+                    return;
+                }
+                // 保存图片前续租并确认租约仍在本实例手中，租约过期被他人认领时不重复保存
+                if (!renew(job)) {
+                    log.info("图像生成任务 {} 的租约已失效，跳过保存结果", job.getJobId());
+                    return;
+                }
+                List<String> ids = imageStorageService.saveBase64Images(base64, job.getUserId());
+                finish(job, ImageJob.STATUS_SUCCEEDED, String.join(",", ids), null);
+            } else if ("failed".equals(status)) {
+                finish(job, ImageJob.STATUS_FAILED, null, "图像生成任务失败");
+            } else {
+                reschedule(job);
+            }
+        } catch (Exception e) {
+            log.warn("查询豆包任务 {} 结果失败: {}", job.getJobId(), e.getMessage());
+            reschedule(job);
+        }
+    }
+
+    /**
+     * 通过条件更新认领任务：只有next_poll_time未被他人改动时才能认领成功
+     */
+    private boolean claim(ImageJob job, LocalDateTime now) {
+        LocalDateTime leaseUntil = leaseUntil(now, job.getNextPollTime());
+        int rows = imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getNextPollTime, leaseUntil)
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .eq(ImageJob::getNextPollTime, job.getNextPollTime()));
+        if (rows > 0) {
+            // 记下本实例持有的租约，后续写入都以它为条件
+            job.setNextPollTime(leaseUntil);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 续租：租约仍为本实例持有时延长租约
+     */
+    private boolean renew(ImageJob job) {
+        LocalDateTime leaseUntil = leaseUntil(LocalDateTime.now(), job.getNextPollTime());
+        int rows = imageJobMapper.update(null, new LambdaUpdateWrapper<ImageJob>()
+                .set(ImageJob::getNextPollTime, leaseUntil)
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .eq(ImageJob::getNextPollTime, job.getNextPollTime()));
+        if (rows > 0) {
+            job.setNextPollTime(leaseUntil);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 计算新租约：next_poll_time 是 DATETIME，只精确到秒，写入前先截到秒，
+     * 否则内存中持有的租约与库中的值永远不相等，后续条件更新全部落空。
+     * 新租约至少比当前租约晚一秒，同一秒内续租也能与旧值区分
+     */
+    private LocalDateTime leaseUntil(LocalDateTime now, LocalDateTime current) {
+        LocalDateTime lease = now.plus(Duration.ofMillis(jobProperties.getLeaseMillis())).truncatedTo(ChronoUnit.SECONDS);
+        if (current != null && !lease.isAfter(current)) {
+            lease = current.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        }
+        return lease;
+    }
+
+    /**
+     * 以本实例持有的租约为条件更新任务，租约失效（已被他人认领或任务已结束）时不写入
+     */
+    private boolean updateUnderLease(ImageJob job, LocalDateTime heldLease) {
+        int rows = imageJobMapper.update(job, new LambdaUpdateWrapper<ImageJob>()
+                .eq(ImageJob::getJobId, job.getJobId())
+                .eq(ImageJob::getStatus, ImageJob.STATUS_RUNNING)
+                .eq(ImageJob::getNextPollTime, heldLease));
+        return rows > 0;
+    }
+
+    /**
+     * 按指数退避安排下一次查询，超过最大次数判定超时
+     */
+    private void reschedule(ImageJob job) {
+        int polls = job.getPollCount() + 1;
+        if (polls >= jobProperties.getMaxPolls()) {
+            finish(job, ImageJob.STATUS_FAILED, null, "图像生成超时，请稍后重试");
+            return;
+        }
+
+        long delay = Math.min(jobProperties.getInitialDelay() << Math.min(polls, 16), jobProperties.getMaxDelay());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime heldLease = job.getNextPollTime();
+        job.setPollCount(polls);
+        // 与租约一样截到秒，保持内存中的值与库中一致
+        job.setNextPollTime(now.plus(Duration.ofMillis(delay)).truncatedTo(ChronoUnit.SECONDS));
+        job.setUpdateTime(now);
+        if (!updateUnderLease(job, heldLease)) {
+            log.info("图像生成任务 {} 的租约已失效，放弃本次调度", job.getJobId());
+        }
+    }
+
+    private void finish(ImageJob job, int status, String imageIds, String errorMsg) {
+        job.setStatus(status);
+        if (status == ImageJob.STATUS_SUCCEEDED) {
+            job.setProgress(100);
+        }
+        job.setImageIds(imageIds);
+        job.setErrorMsg(errorMsg);
+        job.setUpdateTime(LocalDateTime.now());
+        if (!updateUnderLease(job, job.getNextPollTime())) {
+            log.info("图像生成任务 {} 的租约已失效，放弃写入结束状态", job.getJobId());
+            return;
+        }
+
+        log.info("图像生成任务 {} 结束，状态: {}", job.getJobId(), status);
+        complete(job);
+    }
+
+    /**
+     * 其他实例推进结束的任务，由本实例批量查库后唤醒等待者
+     */
+    private void notifyFinishedWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        List<ImageJob> jobs = imageJobMapper.selectBatchIds(new ArrayList<>(waiters.keySet()));
+        for (ImageJob job : jobs) {
+            if (job.getStatus() != ImageJob.STATUS_RUNNING) {
+                complete(job);
+            }
+        }
+    }
+
+    private void complete(ImageJob job) {
+        CompletableFuture<ImageJobVO> future = waiters.remove(job.getJobId());
+        if (future != null) {
+            future.complete(toVO(job));
+        }
+    }
+
+    private ImageJobVO toVO(ImageJob job) {
+        List<String> imageUrls = job.getImageIds() == null || job.getImageIds().isEmpty()
+                ? Collections.emptyList()
+                : Arrays.stream(job.getImageIds().split(","))
+                .map(imageStorageService::getImageUrl)
+                .collect(Collectors.toList());
+
+        return ImageJobVO.builder()
+                .jobId(job.getJobId())
+                .status(job.getStatus())
+                .progress(job.getProgress())
+                .imageUrls(imageUrls)
+                .errorMsg(job.getErrorMsg())
+                .createTime(job.getCreateTime())
+                .updateTime(job.getUpdateTime())
+                .build();
+    }
+}
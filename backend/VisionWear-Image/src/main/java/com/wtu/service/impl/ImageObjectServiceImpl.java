@@ -0,0 +1,196 @@
+package com.wtu.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.wtu.entity.ImageObject;
+import com.wtu.mapper.ImageObjectMapper;
+import com.wtu.properties.ImageStorageProperties;
+import com.wtu.service.ImageDerivativeService;
+import com.wtu.service.ImageObjectService;
+import com.wtu.utils.AliOssUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 引用计数的状态流转：
+ * 首次上传插入计数1；再次引用+1；释放-1；
+ * 回收任务把保留期外的0改成-1（认领），删除OSS对象后再删除索引行。
+ * 引用只对计数>=0的行+1，因此被认领的对象不会再被引用；
+ * 索引行不存在时说明OSS对象已删除，可以安全地重新上传到同名对象。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageObjectServiceImpl implements ImageObjectService {
+
+    private final ImageObjectMapper imageObjectMapper;
+    private final AliOssUtil aliOssUtil;
+    private final ImageStorageProperties storageProperties;
+    private final MeterRegistry meterRegistry;
+    private final ImageDerivativeService imageDerivativeService;
+
+    @Override
+    public ImageObject retainOrUpload(String contentHash, String extension, ObjectUploader uploader) throws IOException {
+        ImageObject existing = retain(contentHash);
+        if (existing != null) {
+            count("hit");
+            return existing;
+        }
+
+        if (imageObjectMapper.selectById(contentHash) != null) {
+            // 同名对象正在被删除，不能覆盖也不能引用
+            count("bypass");
+            String objectName = UUID.randomUUID() + extension;
+            return ImageObject.builder().objectName(objectName).imageUrl(uploader.upload(objectName)).build();
+        }
+
+        String objectName = contentHash + extension;
+        String imageUrl = uploader.upload(objectName);
+        LocalDateTime now = LocalDateTime.now();
+        ImageObject object = ImageObject.builder()
+                .contentHash(contentHash)
+                .objectName(objectName)
+                .imageUrl(imageUrl)
+                .refCount(1)
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        try {
+            imageObjectMapper.insert(object);
+            count("miss");
+            return object;
+        } catch (DuplicateKeyException e) {
+            // 并发上传了相同内容，写入的是同一个对象名、同样的字节，改为引用先登记的一方
+            existing = retain(contentHash);
+            if (existing != null) {
+                count("hit");
+                return existing;
+            }
+            throw new IOException("图片对象索引冲突: " + contentHash);
+        }
+    }
+
+    @Override
+    public ImageObject adopt(String contentHash, String objectName, String imageUrl) {
+        ImageObject existing = retain(contentHash);
+        if (existing == null) {
+            LocalDateTime now = LocalDateTime.now();
+            ImageObject object = ImageObject.builder()
+                    .contentHash(contentHash)
+                    .objectName(objectName)
+                    .imageUrl(imageUrl)
+                    .refCount(1)
+                    .createTime(now)
+                    .updateTime(now)
+                    .build();
+            try {
+                imageObjectMapper.insert(object);
+                count("miss");
+                return object;
+            } catch (DuplicateKeyException e) {
+                existing = retain(contentHash);
+            }
+        }
+
+        if (existing == null) {
+            // 已有对象正在被回收，刚上传的对象独立保留
+            count("bypass");
+            return ImageObject.builder().objectName(objectName).imageUrl(imageUrl).build();
+        }
+
+        count("hit");
+        try {
+            aliOssUtil.delete(objectName);
+        } catch (RuntimeException e) {
+            log.warn("删除重复图片对象 {} 失败: {}", objectName, e.getMessage());
+        }
+        return existing;
+    }
+
+    @Override
+    public void release(String contentHash) {
+        int rows = imageObjectMapper.update(null, new LambdaUpdateWrapper<ImageObject>()
+                .setSql("ref_count = ref_count - 1")
+                .set(ImageObject::getUpdateTime, LocalDateTime.now())
+                .eq(ImageObject::getContentHash, contentHash)
+                .gt(ImageObject::getRefCount, 0));
+        if (rows == 0) {
+            log.warn("释放图片对象 {} 时引用计数已为0", contentHash);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.image.storage.gc-tick:60000}")
+    public void collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(storageProperties.getGcGrace()));
+        // 计数为-1的行是上一轮认领后删除失败的，一并重试
+        List<ImageObject> candidates = imageObjectMapper.selectList(new LambdaQueryWrapper<ImageObject>()
+                .le(ImageObject::getRefCount, 0)
+                .lt(ImageObject::getUpdateTime, cutoff)
+                .last("LIMIT " + storageProperties.getGcBatchSize()));
+
+        int collected = 0;
+        for (ImageObject object : candidates) {
+            if (object.getRefCount() == 0 && !claim(object, cutoff)) {
+                continue;
+            }
+            try {
+                aliOssUtil.delete(object.getObjectName());
+                aliOssUtil.delete(imageDerivativeService.derivativeObjectName(
+                        object.getObjectName(), ImageDerivativeService.SIZE_THUMB));
+                aliOssUtil.delete(imageDerivativeService.derivativeObjectName(
+                        object.getObjectName(), ImageDerivativeService.SIZE_MEDIUM));
+                imageObjectMapper.deleteById(object.getContentHash());
+                collected++;
+            } catch (RuntimeException e) {
+                log.warn("回收图片对象 {} 失败，下轮重试: {}", object.getObjectName(), e.getMessage());
+            }
+        }
+        if (collected > 0) {
+            log.info("回收无引用图片对象 {} 个", collected);
+        }
+    }
+
+    /**
+     * 引用已有对象：只对未被回收认领的行计数+1，成功时返回该行
+     */
+    private ImageObject retain(String contentHash) {
+        int rows = imageObjectMapper.update(null, new LambdaUpdateWrapper<ImageObject>()
+                .setSql("ref_count = ref_count + 1")
+                .set(ImageObject::getUpdateTime, LocalDateTime.now())
+                .eq(ImageObject::getContentHash, contentHash)
+                .ge(ImageObject::getRefCount, 0));
+        return rows > 0 ? imageObjectMapper.selectById(contentHash) : null;
+    }
+
+    /**
+     * 认领一个保留期外仍无引用的对象，认领后不能再被引用
+     */
+    private boolean claim(ImageObject object, LocalDateTime cutoff) {
+        int rows = imageObjectMapper.update(null, new LambdaUpdateWrapper<ImageObject>()
+                .set(ImageObject::getRefCount, ImageObject.REF_COLLECTING)
+                .eq(ImageObject::getContentHash, object.getContentHash())
+                .eq(ImageObject::getRefCount, 0)
+                .lt(ImageObject::getUpdateTime, cutoff));
+        return rows > 0;
+    }
+
+    private void count(String result) {
+        Counter.builder("image.storage.dedup")
+                .description("按内容去重存储的命中情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
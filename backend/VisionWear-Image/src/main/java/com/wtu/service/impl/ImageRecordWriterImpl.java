@@ -0,0 +1,310 @@
+package com.wtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wtu.entity.Image;
+import com.wtu.mapper.ImageMapper;
+import com.wtu.properties.ImageWriteBehindProperties;
+import com.wtu.service.ImageObjectService;
+import com.wtu.service.ImageRecordWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 单个后台线程负责写库：取到第一条后最多再等flushInterval，期间攒够batchSize条立即写出。
+ * 写库多次失败的批次和停机时没写完的记录追加到落盘文件，下次启动时先重放再处理新记录。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageRecordWriterImpl implements ImageRecordWriter {
+
+    private final ImageMapper imageMapper;
+    private final ImageWriteBehindProperties properties;
+    private final ObjectMapper objectMapper;
+    // ImageObjectService 经由衍生图服务间接依赖本类，延迟获取避免循环依赖
+    private final ObjectProvider<ImageObjectService> imageObjectService;
+
+    // 已提交未写库的记录，供写入前读取
+    private final Map<String, Image> pending = new ConcurrentHashMap<>();
+
+    // 写库互斥：后台批次与主动flush不会同时写
+    private final Object writeLock = new Object();
+
+    private BlockingQueue<Image> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "image-record-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(properties.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 超时仍未写完的记录落盘，下次启动重放
+        List<Image> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            spill(rest);
+        }
+    }
+
+    @Override
+    public void write(Image image) {
+        if (!running) {
+            imageMapper.insert(image);
+            return;
+        }
+
+        pending.put(image.getImageId(), image);
+        if (!queue.offer(image)) {
+            // 队列已满，由调用线程直接写入，形成背压
+            pending.remove(image.getImageId());
+            imageMapper.insert(image);
+        }
+    }
+
+    @Override
+    public Image getPending(String imageId) {
+        return pending.get(imageId);
+    }
+
+    @Override
+    public boolean updatePending(String imageId, Consumer<Image> updater) {
+        // 写库与移出缓冲都在写锁内完成，持锁时仍在缓冲中说明还没开始写
+        synchronized (writeLock) {
+            Image image = pending.get(imageId);
+            if (image == null) {
+                return false;
+            }
+            updater.accept(image);
+            return true;
+        }
+    }
+
+    @Override
+    public void flush() {
+        Set<String> waiting = new HashSet<>(pending.keySet());
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        List<Image> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+
+        // 后台线程已取走的批次仍在写，等它结束
+        long deadline = System.currentTimeMillis() + properties.getShutdownTimeout();
+        while (waiting.stream().anyMatch(pending::containsKey) && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runFlusher() {
+        replaySpilled();
+
+        List<Image> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Image first = queue.poll(properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushInterval());
+                while (batch.size() < properties.getBatchSize()) {
+                    queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.getBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    Image next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // 停机时继续把队列写完
+                running = false;
+            } catch (Exception e) {
+                log.error("图片记录批量写入异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 多行插入一批记录，失败时退避重试，重试耗尽后落盘
+     */
+    private void writeBatch(List<Image> batch) {
+        synchronized (writeLock) {
+            try {
+                for (int attempt = 0; ; attempt++) {
+                    try {
+                        imageMapper.insertBatch(batch);
+                        return;
+                    } catch (DuplicateKeyException e) {
+                        // 重放的记录可能已经写过，逐条写入跳过重复
+                        insertEach(batch);
+                        return;
+                    } catch (RuntimeException e) {
+                        if (attempt >= properties.getMaxRetries()) {
+                            log.error("图片记录写入失败 {} 条，落盘等待重放: {}", batch.size(), e.getMessage());
+                            spill(batch);
+                            return;
+                        }
+                        sleepQuietly(100L << attempt);
+                    }
+                }
+            } finally {
+                for (Image image : batch) {
+                    pending.remove(image.getImageId());
+                }
+            }
+        }
+    }
+
+    private void insertEach(List<Image> batch) {
+        List<Image> failed = new ArrayList<>();
+        for (Image image : batch) {
+            try {
+                imageMapper.insert(image);
+            } catch (DuplicateKeyException ignored) {
+                // 已写入
+            } catch (RuntimeException e) {
+                failed.add(image);
+            }
+        }
+        if (!failed.isEmpty()) {
+            spill(failed);
+        }
+    }
+
+    /**
+     * 追加写入落盘文件，每行一条JSON
+     */
+    private void spill(List<Image> images) {
+        Path file = Paths.get(properties.getSpillDir(),
+                "image-" + System.currentTimeMillis() + "-" + UUID.randomUUID() + ".jsonl");
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (Image image : images) {
+                    writer.write(objectMapper.writeValueAsString(image));
+                    writer.newLine();
+                }
+            }
+            log.warn("图片记录 {} 条已落盘: {}", images.size(), file);
+        } catch (IOException e) {
+            // 最后的兜底：把记录打到日志里，便于人工补录；记录丢失后释放其持有的对象引用，
+            // 否则引用计数永远不会归零，对象无法被回收
+            for (Image image : images) {
+                log.error("图片记录落盘失败，丢失记录: {}", image, e);
+                releaseObject(image);
+            }
+        }
+    }
+
+    private void releaseObject(Image image) {
+        if (image.getContentHash() == null) {
+            return;
+        }
+        try {
+            imageObjectService.getObject().release(image.getContentHash());
+        } catch (RuntimeException e) {
+            log.error("释放图片对象引用失败: {}", image.getContentHash(), e);
+        }
+    }
+
+    /**
+     * 重放上次运行落盘的记录，写入成功（或再次落盘）后删除原文件
+     */
+    private void replaySpilled() {
+        Path dir = Paths.get(properties.getSpillDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // 先列出已有文件，重放中再次落盘产生的新文件留到下次启动
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "image-*.jsonl")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.error("读取落盘目录失败: {}", dir, e);
+            return;
+        }
+
+        for (Path file : files) {
+            try {
+                List<Image> images = new ArrayList<>();
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        images.add(objectMapper.readValue(line, Image.class));
+                    }
+                }
+                for (int from = 0; from < images.size(); from += properties.getBatchSize()) {
+                    writeBatch(images.subList(from, Math.min(from + properties.getBatchSize(), images.size())));
+                }
+                Files.delete(file);
+                log.info("重放落盘图片记录 {} 条: {}", images.size(), file);
+            } catch (IOException e) {
+                log.error("重放落盘图片记录失败: {}", file, e);
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.wtu.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.properties.ImageRenderProperties;
+import com.wtu.service.ImageRenderService;
+import com.wtu.service.ImageStorageService;
+import com.wtu.utils.ImageScaler;
+import com.wtu.utils.SHA256;
+import com.wtu.utils.UpstreamHttpClients;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageRenderServiceImpl implements ImageRenderService {
+
+    private static final Set<String> FITS = Set.of(ImageScaler.FIT_CONTAIN, ImageScaler.FIT_COVER, ImageScaler.FIT_FILL);
+
+    private final ImageStorageService imageStorageService;
+    private final UpstreamHttpClients upstreamHttpClients;
+    private final ImageRenderProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // 磁盘缓存索引：按访问顺序排列，队首最久未访问
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // 同一参数正在进行的渲染
+    private final Map<String, CompletableFuture<Rendition>> inFlight = new ConcurrentHashMap<>();
+
+    // 源图字节，按图片ID缓存
+    private Cache<String, byte[]> sourceCache;
+
+    private Path cacheDir;
+    private ExecutorService renderExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(properties.getCacheDir());
+        Files.createDirectories(cacheDir);
+        rebuildIndex();
+
+        sourceCache = Caffeine.newBuilder()
+                .maximumWeight(properties.getSourceCacheMaxBytes())
+                .weigher((String id, byte[] bytes) -> bytes.length)
+                .build();
+
+        AtomicInteger seq = new AtomicInteger();
+        renderExecutor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-render-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        renderExecutor.shutdown();
+    }
+
+    @Override
+    public String etag(String imageId, int width, int height, String fit) {
+        return "\"" + key(imageId, width, height, fit) + "\"";
+    }
+
+    @Override
+    public Rendition render(String imageId, int width, int height, String fit) {
+        ExceptionUtils.requireNonEmpty(imageId, "图片ID不能为空");
+        if (width < 0 || height < 0 || (width == 0 && height == 0)) {
+            throw new BusinessException("宽高至少指定一个");
+        }
+        if (width > properties.getMaxDimension() || height > properties.getMaxDimension()) {
+            throw new BusinessException("宽高不能超过" + properties.getMaxDimension());
+        }
+        if (!FITS.contains(fit)) {
+            throw new BusinessException("不支持的适配方式: " + fit);
+        }
+
+        String key = key(imageId, width, height, fit);
+        Rendition cached = lookup(key);
+        if (cached != null) {
+            count("hit");
+            return cached;
+        }
+
+        CompletableFuture<Rendition> created = new CompletableFuture<>();
+        CompletableFuture<Rendition> future = inFlight.putIfAbsent(key, created);
+        if (future == null) {
+            future = created;
+            // 排满时由调用线程渲染，不能放在map的原子操作里执行
+            renderExecutor.execute(() -> {
+                try {
+                    created.complete(renderToDisk(key, imageId, width, height, fit));
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof BusinessException) {
+                throw (BusinessException) cause;
+            }
+            throw new BusinessException("图片渲染失败: " + cause.getMessage());
+        }
+    }
+
+    private Rendition renderToDisk(String key, String imageId, int width, int height, String fit) {
+        // 排队期间可能已由先到的请求渲染完成
+        Rendition cached = lookup(key);
+        if (cached != null) {
+            count("hit");
+            return cached;
+        }
+        count("miss");
+
+        try {
+            BufferedImage source = ImageScaler.read(new ByteArrayInputStream(
+                    sourceCache.get(imageId, this::download)), properties.getMaxSourcePixels());
+            if (source == null) {
+                throw new BusinessException("无法识别的图片格式");
+            }
+            BufferedImage output = ImageScaler.fit(source, width, height, fit);
+
+            // 先写临时文件再原子改名，读者不会看到写了一半的文件
+            Path file = pathOf(key);
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                ImageScaler.writeJpeg(output, properties.getQuality(), out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long size = Files.size(file);
+            admit(key, size);
+            return new Rendition(file, "\"" + key + "\"", size);
+        } catch (IOException e) {
+            throw new BusinessException("图片渲染失败: " + e.getMessage());
+        }
+    }
+
+    private byte[] download(String imageId) {
+        String imageUrl = imageStorageService.getImageUrl(imageId);
+        Request request = new Request.Builder().url(imageUrl).get().build();
+        try (Response response = upstreamHttpClients.forUrl(imageUrl).newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (response.code() == 404) {
+                throw new BusinessException("图片不存在");
+            }
+            if (!response.isSuccessful() || body == null) {
+                throw new BusinessException("获取原图失败: HTTP状态码 " + response.code());
+            }
+            return body.bytes();
+        } catch (IOException e) {
+            throw new BusinessException("获取原图失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 命中时刷新访问顺序；索引里有但文件已丢失时移出索引
+     */
+    private Rendition lookup(String key) {
+        Long size;
+        synchronized (index) {
+            size = index.get(key);
+        }
+        if (size == null) {
+            return null;
+        }
+        Path file = pathOf(key);
+        if (!Files.exists(file)) {
+            synchronized (index) {
+                if (index.remove(key) != null) {
+                    totalBytes -= size;
+                }
+            }
+            return null;
+        }
+        return new Rendition(file, "\"" + key + "\"", size);
+    }
+
+    /**
+     * 登记新文件并淘汰最久未访问的文件，直到总大小回到上限以内
+     * 正在发送的文件被删除时已打开的FileChannel仍可读完
+     */
+    private void admit(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            Long previous = index.put(key, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (totalBytes > properties.getCacheMaxBytes() && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String old : evicted) {
+            try {
+                Files.deleteIfExists(pathOf(old));
+            } catch (IOException e) {
+                log.warn("删除渲染缓存文件 {} 失败: {}", old, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 启动时按最后访问时间重建索引，清理上次遗留的临时文件
+     */
+    private void rebuildIndex() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(cacheDir, 2)) {
+            stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(".tmp")) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+
+        attributes.entrySet().stream()
+                .sorted(Comparator.comparing(e -> e.getValue().lastAccessTime()))
+                .forEach(e -> {
+                    String name = e.getKey().getFileName().toString();
+                    index.put(name.substring(0, name.length() - ".jpg".length()), e.getValue().size());
+                    totalBytes += e.getValue().size();
+                });
+        log.info("渲染缓存已加载 {} 个文件，共 {} 字节", index.size(), totalBytes);
+    }
+
+    /**
+     * 缓存文件按键的前两位分目录，避免单目录文件过多
+     */
+    private Path pathOf(String key) {
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".jpg");
+    }
+
+    private String key(String imageId, int width, int height, String fit) {
+        String raw = imageId + "|" + width + "|" + height + "|" + fit + "|" + properties.getQuality();
+        return SHA256.sha256(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void count(String result) {
+        Counter.builder("image.render.cache")
+                .description("渲染结果磁盘缓存命中情况")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -7,33 +7,40 @@ import com.alibaba.dashscope.exception.ApiException;
 import com.alibaba.dashscope.exception.NoApiKeyException;
 import com.alibaba.fastjson.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.tencentcloudapi.aiart.v20221229.AiartClient;
 import com.tencentcloudapi.aiart.v20221229.models.SketchToImageRequest;
 import com.tencentcloudapi.aiart.v20221229.models.SketchToImageResponse;
-import com.tencentcloudapi.common.Credential;
 import com.tencentcloudapi.common.exception.TencentCloudSDKException;
-import com.tencentcloudapi.common.profile.ClientProfile;
-import com.tencentcloudapi.common.profile.HttpProfile;
 import com.volcengine.service.visual.IVisualService;
 import com.volcengine.service.visual.model.request.ImageStyleConversionRequest;
 import com.volcengine.service.visual.model.response.ImageStyleConversionResponse;
+import com.wtu.config.ProviderBulkheads;
+import com.wtu.config.ProviderClientRegistry;
 import com.wtu.dto.image.*;
+import com.wtu.properties.ProviderProperties;
 import com.wtu.vo.DoodleToImageByTYVO;
+import com.wtu.vo.GalleryImageVO;
+import com.wtu.vo.GalleryPageVO;
 import com.wtu.vo.ImageFusionVO;
+import com.wtu.vo.ImageJobVO;
 import com.wtu.vo.SketchToImageByTYVO;
 import com.wtu.vo.SketchToImageVO;
 import com.wtu.entity.Image;
 import com.wtu.exception.BusinessException;
 import com.wtu.exception.ExceptionUtils;
 import com.wtu.mapper.ImageMapper;
+import com.wtu.service.FusionJobService;
+import com.wtu.service.GenerationCacheService;
+import com.wtu.service.ImageJobService;
 import com.wtu.service.ImageService;
 import com.wtu.service.ImageStorageService;
 import com.wtu.utils.ImageBase64Util;
 import com.wtu.utils.ModelUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -41,6 +48,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -49,23 +60,25 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ImageServiceImpl implements ImageService {
 
-    // 线稿生图
-    // 根据需求调整地域
-    private static final String TENCENT_REGION = "ap-shanghai";
+    // 图库分页：默认每页数量、每页上限、导出时每批读取的行数
+    private static final int GALLERY_DEFAULT_SIZE = 20;
+    private static final int GALLERY_MAX_SIZE = 100;
+    private static final int GALLERY_EXPORT_BATCH = 500;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     private final RestTemplate restTemplate;
     private final ImageStorageService imageStorageService;
     private final ImageMapper imageMapper;
     private final ImageBase64Util imageBase64Util;
-    // 通义-文生图功能
-    @Value("${vision.aliyun.api-key}")
-    private String aliyunApiKey;
-    @Value("${vision.tencent.secret-id}")
-    private String tencentSecretId;
-    @Value("${vision.tencent.secret-key}")
-    private String tencentSecretKey;
-    @Value("${vision.ttapi.api-key}")
-    private String ttApiKey;
+    private final ImageJobService imageJobService;
+    private final FusionJobService fusionJobService;
+    // 厂商SDK客户端与密钥
+    private final ProviderClientRegistry providerClientRegistry;
+    private final ProviderProperties providerProperties;
+    // 按厂商隔离的并发限制
+    private final ProviderBulkheads providerBulkheads;
+    // 生成结果缓存与请求合并
+    private final GenerationCacheService generationCacheService;
 
     // 文本生成图像
     @Override
@@ -74,10 +87,15 @@ public class ImageServiceImpl implements ImageService {
         ExceptionUtils.requireNonNull(request.getPrompt(), "生成提示词不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
+        // 重复提交直接复用上次结果，同时在途的相同请求只调用一次厂商
+        return generationCacheService.getOrGenerate(ProviderClientRegistry.PROVIDER_DOUBAO, request, userId,
+                () -> generateByDoubao(request, userId));
+    }
+
+    private List<String> generateByDoubao(TextToImageDTO request, Long userId) {
         try {
-            List<String> ids = new ArrayList<>();
-            //用工具类快速构造VisualService
-            IVisualService visualService = ModelUtils.createVisualService("cn-north-1");
+            //从注册表获取共享的VisualService
+            IVisualService visualService = providerClientRegistry.getVisualService();
             //用工具类转为JsonObject类型
             JSONObject req = ModelUtils.toJsonObject(request);
             //如果用户prompt字数过少，则开启自动文本优化
@@ -85,7 +103,8 @@ public class ImageServiceImpl implements ImageService {
                 req.put("use_pre_llm", true);
             }
             //发送请求，得到response
-            Object response = visualService.cvProcess(req);
+            Object response = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_DOUBAO,
+                    () -> visualService.cvProcess(req));
             //从response中拿出base64编码
             List<String> base64Array = ModelUtils.getBase64(response);
 
@@ -93,11 +112,8 @@ public class ImageServiceImpl implements ImageService {
                 throw new BusinessException("未能生成有效的图像");
             }
 
-            for (String s : base64Array) {
-                ids.add(imageStorageService.saveBase64Image(s, userId));
-            }
-
-            return ids;
+            //多张结果并行转存，顺序与生成结果一致
+            return imageStorageService.saveBase64Images(base64Array, userId);
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -111,9 +127,14 @@ public class ImageServiceImpl implements ImageService {
         ExceptionUtils.requireNonNull(request.getPrompt(), "生成提示词不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
+        return generationCacheService.getOrGenerate(ProviderClientRegistry.PROVIDER_TONGYI, request, userId,
+                () -> generateByTongyi(request, userId));
+    }
+
+    private List<String> generateByTongyi(TextToImageByTYDTO request, Long userId) {
         try {
             ImageSynthesisParam.ImageSynthesisParamBuilder builder = ImageSynthesisParam.builder()
-                    .apiKey(aliyunApiKey)
+                    .apiKey(providerProperties.getAliyun().getApiKey())
                     .model(request.getModel())
                     .prompt(request.getPrompt())
                     .n(request.getN())
@@ -127,26 +148,29 @@ public class ImageServiceImpl implements ImageService {
             }
             ImageSynthesisParam param = builder.build();
 
-            ImageSynthesis imageSynthesis = new ImageSynthesis();
-            ImageSynthesisResult result = imageSynthesis.call(param); // 同步调用
+            ImageSynthesis imageSynthesis = providerClientRegistry.getImageSynthesis();
+            ImageSynthesisResult result = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TONGYI,
+                    () -> imageSynthesis.call(param)); // 同步调用
 
             if (result == null || result.getOutput() == null || result.getOutput().getResults() == null) {
                 throw new BusinessException("未能获取到图像生成结果");
             }
 
-            List<String> ids = new ArrayList<>();
+            List<String> imageUrls = new ArrayList<>();
             for (var img : result.getOutput().getResults()) {
                 String imageUrl = img.get("url");
                 if (imageUrl == null || imageUrl.isEmpty()) continue;
-                String imageId = imageStorageService.saveImageFromUrl(imageUrl, userId);
-                ids.add(imageId);
+                imageUrls.add(imageUrl);
             }
+            List<String> ids = imageStorageService.saveImagesFromUrls(imageUrls, userId);
 
             if (ids.isEmpty()) {
                 throw new BusinessException("未能生成有效的图像");
             }
             return ids;
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (ApiException | NoApiKeyException e) {
             log.error("通义万象SDK调用失败", e);
             throw new BusinessException("通义万象SDK调用失败: " + e.getMessage());
@@ -179,7 +203,7 @@ public class ImageServiceImpl implements ImageService {
 
             // 构建SDK调用参数
             ImageSynthesisParam.ImageSynthesisParamBuilder builder = ImageSynthesisParam.builder()
-                    .apiKey(aliyunApiKey)
+                    .apiKey(providerProperties.getAliyun().getApiKey())
                     .model(request.getModel())
                     .function(ImageSynthesis.ImageEditFunction.DOODLE)
                     .prompt(request.getPrompt())
@@ -196,21 +220,26 @@ public class ImageServiceImpl implements ImageService {
             ImageSynthesisParam param = builder.build();
 
             // 调用SDK
-            ImageSynthesis imageSynthesis = new ImageSynthesis();
-            ImageSynthesisResult result = imageSynthesis.call(param);
+            ImageSynthesis imageSynthesis = providerClientRegistry.getImageSynthesis();
+            ImageSynthesisResult result = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TONGYI,
+                    () -> imageSynthesis.call(param));
 
             if (result == null || result.getOutput() == null || result.getOutput().getResults() == null) {
                 throw new BusinessException("未能获取到图像生成结果");
             }
 
+            List<Map<String, String>> results = result.getOutput().getResults();
+            List<String> imageIds = imageStorageService.saveImagesFromUrls(
+                    results.stream().map(img -> img.get("url")).collect(Collectors.toList()), userId);
+
             List<SketchToImageByTYVO.GeneratedImage> imageList = new ArrayList<>();
-            for (var img : result.getOutput().getResults()) {
+            for (int i = 0; i < results.size(); i++) {
+                Map<String, String> img = results.get(i);
                 String imageUrl = img.get("url");
                 int width = img.containsKey("width") ? Integer.parseInt(img.get("width")) : 0;
                 int height = img.containsKey("height") ? Integer.parseInt(img.get("height")) : 0;
                 long seed = img.containsKey("seed") ? Long.parseLong(img.get("seed")) : 0L;
-
-                String imageId = imageStorageService.saveImageFromUrl(imageUrl, userId);
+                String imageId = imageIds.get(i);
 
                 imageList.add(SketchToImageByTYVO.GeneratedImage.builder()
                         .imageId(imageId)
@@ -229,6 +258,8 @@ public class ImageServiceImpl implements ImageService {
                     .generationTimeMs(System.currentTimeMillis() - startTime)
                     .build();
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (ApiException | NoApiKeyException e) {
             log.error("通义万象SDK调用失败", e);
             throw new BusinessException("通义万象SDK调用失败: " + e.getMessage());
@@ -257,7 +288,7 @@ public class ImageServiceImpl implements ImageService {
         try {
             // 构建参数，完全对齐官方SDK
             ImageSynthesisParam param = ImageSynthesisParam.builder()
-                    .apiKey(aliyunApiKey)
+                    .apiKey(providerProperties.getAliyun().getApiKey())
                     .model(request.getModel())
                     .prompt(request.getPrompt())
                     .n(request.getN())
@@ -268,21 +299,27 @@ public class ImageServiceImpl implements ImageService {
                     .build();
 
             // 调用SDK
-            ImageSynthesis imageSynthesis = new ImageSynthesis("image2image");
-            ImageSynthesisResult result = imageSynthesis.call(param);
+            ImageSynthesis imageSynthesis = providerClientRegistry.getImageSynthesis(ProviderClientRegistry.TONGYI_TASK_IMAGE2IMAGE);
+            ImageSynthesisResult result = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TONGYI,
+                    () -> imageSynthesis.call(param));
 
             if (result == null || result.getOutput() == null || result.getOutput().getResults() == null) {
                 throw new BusinessException("未能获取到图像生成结果");
             }
 
+            List<Map<String, String>> results = result.getOutput().getResults();
+            List<String> imageIds = imageStorageService.saveImagesFromUrls(
+                    results.stream().map(img -> img.get("url")).collect(Collectors.toList()), userId);
+
             List<DoodleToImageByTYVO.GeneratedImage> imageList = new ArrayList<>();
-            for (var img : result.getOutput().getResults()) {
+            for (int i = 0; i < results.size(); i++) {
+                Map<String, String> img = results.get(i);
                 String imageUrl = img.get("url");
                 int width = img.containsKey("width") ? Integer.parseInt(img.get("width")) : 0;
                 int height = img.containsKey("height") ? Integer.parseInt(img.get("height")) : 0;
                 long seed = img.containsKey("seed") ? Long.parseLong(img.get("seed")) : 0L;
                 String style = img.get("style");
-                String imageId = imageStorageService.saveImageFromUrl(imageUrl, userId);
+                String imageId = imageIds.get(i);
 
                 imageList.add(DoodleToImageByTYVO.GeneratedImage.builder()
                         .imageId(imageId)
@@ -302,6 +339,8 @@ public class ImageServiceImpl implements ImageService {
                     .generationTimeMs(System.currentTimeMillis() - startTime)
                     .build();
 
+        } catch (BusinessException e) {
+            throw e;
         } catch (ApiException | NoApiKeyException e) {
             log.error("通义万象SDK调用失败", e);
             throw new BusinessException("通义万象SDK调用失败: " + e.getMessage());
@@ -311,20 +350,20 @@ public class ImageServiceImpl implements ImageService {
         }
     }
 
-    // 图像生成图像
+    // 图像生成图像：只提交任务并登记，结果由ImageJobService的轮询器推进
     @Override
-    public List<String> imageToImage(ImageToImageDTO request, Long userId) {
+    public ImageJobVO imageToImage(ImageToImageDTO request, Long userId) {
         ExceptionUtils.requireNonNull(request, "请求参数不能为空");
         ExceptionUtils.requireNonNull(request.getReqKey(), "请求Key不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
         try {
-            List<String> ids = new ArrayList<>();
             JSONObject jsonRequest = ModelUtils.toJsonObject(request);
-            //用工具类构造IvisualService实例
-            IVisualService visualService = ModelUtils.createVisualService("cn-north-1");
+            //从注册表获取共享的VisualService
+            IVisualService visualService = providerClientRegistry.getVisualService();
 
-            JSONObject response = (JSONObject) visualService.cvSync2AsyncSubmitTask(jsonRequest);
+            JSONObject response = (JSONObject) providerBulkheads.execute(ProviderClientRegistry.PROVIDER_DOUBAO,
+                    () -> visualService.cvSync2AsyncSubmitTask(jsonRequest));
 
             //这个方法，需要传的是一整个未被剪切的JsonObject，方法会自动帮我们剪切出data，然后从data中拿取我们想要的数据。
             String taskId = ModelUtils.getFromJsonData(response, "task_id", String.class);
@@ -332,49 +371,9 @@ public class ImageServiceImpl implements ImageService {
                 throw new BusinessException("获取任务ID失败");
             }
 
-            //用taskID去申请另一个接口，得到图片
-            JSONObject taskRequest = new JSONObject();
-            taskRequest.put("req_key", request.getReqKey());
-            taskRequest.put("task_id", taskId);
-
-            // 设置最大重试次数和超时时间
-            int maxRetries = 30; // 最多重试30次
-            int retryCount = 0;
-            long sleepTime = 2000; // 初始等待2秒
-
-            while (retryCount < maxRetries) {
-                //不断循环请求结果，直到状态为Done，再拿取base64
-                JSONObject taskResponse = (JSONObject) visualService.cvSync2AsyncGetResult(taskRequest);
-                String status = ModelUtils.getFromJsonData(taskResponse, "status", String.class);
-                if ("done".equals(status)) {
-                    //先确保taskResponse有数据
-                    List<String> base64 = ModelUtils.getBase64(taskResponse);
-                    if (base64.isEmpty()) {
-                        throw new BusinessException("获取图像结果失败");
-                    }
-
-                    for (String s : base64) {
-                        //对base64进行解码并上传,得到ImageID,存入ids中
-                        ids.add(imageStorageService.saveBase64Image(s, userId));
-                    }
-                    return ids;
-                } else if ("failed".equals(status)) {
-                    throw new BusinessException("图像生成任务失败");
-                }
-
-                // 等待一段时间后重试
-                Thread.sleep(sleepTime);
-                retryCount++;
-                // 逐步增加等待时间，但最多等待10秒
-                sleepTime = Math.min(sleepTime * 2, 10000);
-            }
-
-            throw new BusinessException("图像生成超时，请稍后重试");
+            return imageJobService.createDoubaoJob(userId, request.getReqKey(), taskId);
         } catch (BusinessException e) {
             throw e;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new BusinessException("图像生成被中断");
         } catch (Exception e) {
             throw new BusinessException("图像生成失败: " + e.getMessage());
         }
@@ -397,11 +396,9 @@ public class ImageServiceImpl implements ImageService {
             }
 
             // 2. 使用腾讯云SDK调用API
-            SketchToImageResponse response = callTencentSketchToImage(
-                    sketchUrl,
-                    request.getPrompt(),
-                    request.getRspImgType()
-            );
+            String inputUrl = sketchUrl;
+            SketchToImageResponse response = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TENCENT,
+                    () -> callTencentSketchToImage(inputUrl, request.getPrompt(), request.getRspImgType()));
 
             // 3. 解析响应并保存图片
             String resultImageUrl = response.getResultImage();
@@ -443,29 +440,30 @@ public class ImageServiceImpl implements ImageService {
 
         try {
 
-            // 1. 图片URL转Base64
-            List<String> base64Images = request.getImageUrlList().stream()
-                    .map(imageBase64Util::imageUrlToBase64)
-                    .collect(Collectors.toList());
+            // 1. 图片URL并行转Base64
+            List<String> base64Images = imageBase64Util.imageUrlsToBase64(request.getImageUrlList());
 
             // 2. 组装请求体
             Map<String, Object> body = new HashMap<>();
             body.put("imgBase64Array", base64Images);
             body.put("dimensions", request.getDimensions());
             body.put("mode", request.getMode());
-            body.put("hookUrl", request.getHookUrl());
+            // 配置了服务自有回调时由TTAPI推送进度，否则沿用调用方传入的地址
+            String hookUrl = fusionJobService.hookUrl();
+            body.put("hookUrl", hookUrl != null ? hookUrl : request.getHookUrl());
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("TT-API-KEY", ttApiKey);
+            headers.set("TT-API-KEY", providerProperties.getTtapi().getApiKey());
 
             HttpEntity<Map<String, Object>> httpEntity = new HttpEntity<>(body, headers);
 
             // 3. 调用blend接口提交任务
-            ResponseEntity<JsonNode> responseEntity = restTemplate.postForEntity(
-                    "https://api.ttapi.io/midjourney/v1/blend",
-                    httpEntity,
-                    JsonNode.class);
+            ResponseEntity<JsonNode> responseEntity = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_TTAPI,
+                    () -> restTemplate.postForEntity(
+                            "https://api.ttapi.io/midjourney/v1/blend",
+                            httpEntity,
+                            JsonNode.class));
 
             JsonNode responseJson = responseEntity.getBody();
             if (responseJson == null || !"SUCCESS".equals(responseJson.path("status").asText())) {
@@ -476,7 +474,7 @@ public class ImageServiceImpl implements ImageService {
             if (jobId == null || jobId.isEmpty()) {
                 throw new BusinessException("获取任务ID失败");
             }
-
+            fusionJobService.register(jobId, userId);
 
             // 4. 只返回jobId，前端或调用方后续用jobId查询结果
             return ImageFusionVO.builder()
@@ -497,68 +495,9 @@ public class ImageServiceImpl implements ImageService {
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("TT-API-KEY", ttApiKey);
-
-            Map<String, String> body = new HashMap<>();
-            body.put("jobId", jobId);
-
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
-            ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                    "https://api.ttapi.io/midjourney/v1/fetch",
-                    request,
-                    JsonNode.class
-            );
-
-            JsonNode responseJson = response.getBody();
-            if (responseJson == null) {
-                throw new BusinessException("无响应");
-            }
-
-            String status = responseJson.path("status").asText();
-
-            // 检查任务状态
-            if ("FAILED".equals(status)) {
-                String msg = responseJson.path("message").asText();
-                throw new BusinessException("任务失败: " + msg);
-            }
-
-            JsonNode dataNode = responseJson.path("data");
-            String progress = dataNode.path("progress").asText("0");
-            
-            // 如果任务未完成，返回进度信息
-            if (Integer.parseInt(progress) < 100) {
-                log.info("任务 {} 当前进度: {}%", jobId, progress);
-                return ImageFusionVO.builder()
-                        .requestId(UUID.randomUUID().toString())
-                        .jobId(jobId)
-                        .progress(Integer.parseInt(progress))
-                        .generationTimeMs(0)
-                        .build();
-            }
-
-            // 任务完成，获取图片
-            String cdnImage = dataNode.path("cdnImage").asText(null);
-            if (cdnImage == null || cdnImage.isEmpty()) {
-                throw new BusinessException("未获取到图片地址");
-            }
-
-            String imageId = imageStorageService.saveImageFromUrl(cdnImage, userId);
-            String ossImageUrl = imageStorageService.getImageUrl(imageId);
-
-            ImageFusionVO.GeneratedImage generatedImage = ImageFusionVO.GeneratedImage.builder()
-                    .imageId(imageId)
-                    .imageUrl(ossImageUrl)
-                    .build();
-
-            return ImageFusionVO.builder()
-                    .requestId(UUID.randomUUID().toString())
-                    .jobId(jobId)
-                    .images(Collections.singletonList(generatedImage))
-                    .progress(100)
-                    .generationTimeMs(0)
-                    .build();
+            // 结果只转存一次并记录在任务表，重复查询直接读记录，不再访问TTAPI和OSS
+            ImageFusionVO local = fusionJobService.getFusion(jobId, userId);
+            return local != null ? local : fusionJobService.adopt(jobId, userId);
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -571,27 +510,11 @@ public class ImageServiceImpl implements ImageService {
         ExceptionUtils.requireNonEmpty(jobId, "任务ID不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("TT-API-KEY", ttApiKey);
-
-        Map<String, String> body = new HashMap<>();
-        body.put("jobId", jobId);
-
-        HttpEntity<Map<String, String>> request = new HttpEntity<>(body, headers);
-
-        ResponseEntity<JsonNode> response = restTemplate.postForEntity(
-                "https://api.ttapi.io/midjourney/v1/fetch",
-                request,
-                JsonNode.class
-        );
-
-        JsonNode responseJson = response.getBody();
-        if (responseJson == null) {
-            throw new BusinessException("无响应");
+        ImageFusionVO local = fusionJobService.getFusion(jobId, userId);
+        if (local == null) {
+            local = fusionJobService.adopt(jobId, userId);
         }
-
-        return responseJson.path("data").get("progress").asText();
+        return String.valueOf(local.getProgress());
     }
 
     private SketchToImageResponse callTencentSketchToImage(
@@ -601,15 +524,8 @@ public class ImageServiceImpl implements ImageService {
     ) throws TencentCloudSDKException {
         ExceptionUtils.requireNonEmpty(sketchUrl, "线稿图URL不能为空");
 
-        // 配置认证信息
-        Credential cred = new Credential(tencentSecretId, tencentSecretKey);
-
-        // 创建客户端
-        HttpProfile httpProfile = new HttpProfile();
-        httpProfile.setEndpoint("aiart.tencentcloudapi.com");
-        ClientProfile clientProfile = new ClientProfile();
-        clientProfile.setHttpProfile(httpProfile);
-        AiartClient client = new AiartClient(cred, TENCENT_REGION, clientProfile);
+        // 复用注册表中的客户端
+        AiartClient client = providerClientRegistry.getAiartClient();
 
         // 构建请求
         SketchToImageRequest req = new SketchToImageRequest();
@@ -623,6 +539,7 @@ public class ImageServiceImpl implements ImageService {
 
     // 获取用户所有图像URL
     @Override
+    @Deprecated
     public List<String> getAllImageUrls(Long userId) {
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
 
@@ -641,6 +558,108 @@ public class ImageServiceImpl implements ImageService {
         }
     }
 
+    @Override
+    public GalleryPageVO getGallery(Long userId, String cursor, Integer size) {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        int pageSize = size == null ? GALLERY_DEFAULT_SIZE : Math.max(1, Math.min(size, GALLERY_MAX_SIZE));
+
+        // 多取一条用来判断是否还有下一页
+        List<Image> rows = selectGalleryPage(userId, decodeGalleryCursor(cursor), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<GalleryImageVO> images = rows.stream()
+                .map(row -> GalleryImageVO.builder()
+                        .imageId(row.getImageId())
+                        .imageUrl(row.getImageUrl())
+                        .thumbUrl(row.getThumbUrl() != null ? row.getThumbUrl() : row.getImageUrl())
+                        .createTime(row.getCreateTime())
+                        .build())
+                .collect(Collectors.toList());
+
+        return GalleryPageVO.builder()
+                .images(images)
+                .nextCursor(hasMore ? encodeGalleryCursor(rows.get(rows.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    public void exportGallery(Long userId, OutputStream out) throws IOException {
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.writeStartArray();
+
+            Image last = null;
+            while (true) {
+                List<Image> rows = selectGalleryPage(userId, last, GALLERY_EXPORT_BATCH);
+                for (Image row : rows) {
+                    generator.writeStartObject();
+                    generator.writeStringField("imageId", row.getImageId());
+                    generator.writeStringField("imageUrl", row.getImageUrl());
+                    generator.writeStringField("createTime",
+                            row.getCreateTime() == null ? null : row.getCreateTime().toString());
+                    generator.writeEndObject();
+                }
+                // 每批写完立即刷出，客户端可以边收边解析
+                generator.flush();
+                if (rows.size() < GALLERY_EXPORT_BATCH) {
+                    break;
+                }
+                last = rows.get(rows.size() - 1);
+            }
+
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * 沿(create_time, image_id)倒序从游标位置往后读取一页，命中idx_user_status_time时只扫描limit行
+     */
+    private List<Image> selectGalleryPage(Long userId, Image after, int limit) {
+        LambdaQueryWrapper<Image> wrapper = new LambdaQueryWrapper<Image>()
+                .select(Image::getImageId, Image::getImageUrl, Image::getThumbUrl, Image::getCreateTime)
+                .eq(Image::getUserId, userId)
+                .eq(Image::getStatus, 0);
+        if (after != null) {
+            wrapper.and(w -> w.lt(Image::getCreateTime, after.getCreateTime())
+                    .or(o -> o.eq(Image::getCreateTime, after.getCreateTime())
+                            .lt(Image::getImageId, after.getImageId())));
+        }
+        wrapper.orderByDesc(Image::getCreateTime)
+                .orderByDesc(Image::getImageId)
+                .last("LIMIT " + limit);
+        return imageMapper.selectList(wrapper);
+    }
+
+    /**
+     * 游标为"创建时间|图片ID"的URL安全Base64，对调用方不透明
+     */
+    private static String encodeGalleryCursor(Image last) {
+        String raw = last.getCreateTime() + "|" + last.getImageId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Image decodeGalleryCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return Image.builder()
+                    .createTime(LocalDateTime.parse(raw.substring(0, sep)))
+                    .imageId(raw.substring(sep + 1))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+
     @Override
     public String styleConversion(StyleConversionDTO request, Long userId) {
         ExceptionUtils.requireNonNull(request, "请求参数不能为空");
@@ -648,12 +667,13 @@ public class ImageServiceImpl implements ImageService {
         ExceptionUtils.requireNonEmpty(request.getImageBase64(), "图片编码不能为空");
 
         try {
-            IVisualService visualService = ModelUtils.createVisualService("cn-north-1");
+            IVisualService visualService = providerClientRegistry.getVisualService();
             ImageStyleConversionRequest requestJson = new ImageStyleConversionRequest();
             requestJson.setImageBase64(request.getImageBase64());
             requestJson.setType(request.getType());
             //调用请求，拿取base64编码
-            ImageStyleConversionResponse response = visualService.imageStyleConversion(requestJson);
+            ImageStyleConversionResponse response = providerBulkheads.execute(ProviderClientRegistry.PROVIDER_DOUBAO,
+                    () -> visualService.imageStyleConversion(requestJson));
             String image = response.getData().getImage();
             if (image == null || image.isEmpty()) {
                 throw new BusinessException("获取转换后图片失败");
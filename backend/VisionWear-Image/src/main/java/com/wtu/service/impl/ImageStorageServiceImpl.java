@@ -1,21 +1,47 @@
 package com.wtu.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wtu.entity.Image;
+import com.wtu.entity.ImageObject;
 import com.wtu.exception.BusinessException;
 import com.wtu.exception.ExceptionUtils;
 import com.wtu.mapper.ImageMapper;
+import com.wtu.properties.ImagePersistProperties;
+import com.wtu.properties.ImageStorageProperties;
+import com.wtu.service.GenerationCacheService;
+import com.wtu.service.ImageDerivativeService;
+import com.wtu.service.ImageObjectService;
+import com.wtu.service.ImageRecordWriter;
 import com.wtu.service.ImageStorageService;
 import com.wtu.utils.AliOssUtil;
+import com.wtu.utils.ImageBase64Util;
+import com.wtu.utils.SHA256;
+import com.wtu.utils.UpstreamHttpClients;
+import com.wtu.utils.UserContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.springframework.stereotype.Service;
-import java.net.URL;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -25,36 +51,88 @@ public class ImageStorageServiceImpl implements ImageStorageService {
     // IOC 注入
     private final AliOssUtil aliOssUtil;
     private final ImageMapper imageMapper;
+    private final MeterRegistry meterRegistry;
+    private final UpstreamHttpClients upstreamHttpClients;
+    private final ImagePersistProperties persistProperties;
+    private final ImageStorageProperties storageProperties;
+    private final ImageObjectService imageObjectService;
+    private final ImageRecordWriter imageRecordWriter;
+    private final ImageDerivativeService imageDerivativeService;
+    private final GenerationCacheService generationCacheService;
+
+    // 图片ID到图片记录（原图与衍生图URL）的映射
+    private Cache<String, Image> imageCache;
+
+    // 多图转存线程池，与请求线程隔离
+    private ExecutorService persistExecutor;
+
+    @PostConstruct
+    public void init() {
+        imageCache = Caffeine.newBuilder()
+                .maximumSize(storageProperties.getUrlCacheSize())
+                // 衍生图由其他实例生成时，过期后重新读取才能看到
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .build();
+
+        AtomicInteger seq = new AtomicInteger();
+        persistExecutor = new ThreadPoolExecutor(
+                persistProperties.getThreads(),
+                persistProperties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(persistProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "image-persist-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 排满时由调用线程执行，形成背压而不是丢弃
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        persistExecutor.shutdown();
+    }
 
     @Override
     public String saveBase64Image(String base64Image, Long userId) {
         ExceptionUtils.requireNonEmpty(base64Image, "图像数据不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
-        
+
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String imageId = UUID.randomUUID().toString();
-            String objectName = imageId + ".png";
+            long contentLength = ImageBase64Util.decodedLength(base64Image);
 
-            // 解码并上传到OSS
-            byte[] imageBytes = Base64.getDecoder().decode(base64Image);
-            String imageUrl = aliOssUtil.upload(imageBytes, objectName);
+            // 边解码边上传到OSS：解码流直接喂给putObject，不再生成完整的byte[]
+            ImageObjectService.ObjectUploader uploader = objectName -> {
+                try (InputStream in = ImageBase64Util.decodingStream(base64Image)) {
+                    return aliOssUtil.upload(in, contentLength, "image/png", objectName);
+                }
+            };
 
-            // 插入数据库记录
-            Image image = Image.builder()
-                    .imageId(imageId)
-                    .userId(userId)
-                    .imageUrl(imageUrl)
-                    .createTime(LocalDateTime.now())
-                    .status(0)
-                    .build();
-            imageMapper.insert(image);
+            ImageObject object;
+            if (storageProperties.isContentAddressed()) {
+                // 先解码一遍计算哈希，已存在相同内容时跳过上传
+                String contentHash;
+                try (InputStream in = ImageBase64Util.decodingStream(base64Image)) {
+                    contentHash = SHA256.sha256(in);
+                }
+                object = imageObjectService.retainOrUpload(contentHash, ".png", uploader);
+            } else {
+                String objectName = imageId + ".png";
+                object = ImageObject.builder().objectName(objectName).imageUrl(uploader.upload(objectName)).build();
+            }
 
+            insertImage(imageId, userId, object);
             return imageId;
 
         } catch (IllegalArgumentException e) {
             throw new BusinessException("图像格式不正确，无法解码");
         } catch (Exception e) {
             throw new BusinessException("保存图像失败: " + e.getMessage());
+        } finally {
+            sample.stop(saveTimer("base64"));
         }
     }
 
@@ -62,48 +140,236 @@ public class ImageStorageServiceImpl implements ImageStorageService {
     public String saveImageFromUrl(String imageUrl, Long userId) {
         ExceptionUtils.requireNonEmpty(imageUrl, "图像URL不能为空");
         ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
-        
+
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String imageId = UUID.randomUUID().toString();
             String objectName = imageId + ".png";
 
-            // 1. 从URL下载图片数据
-            byte[] imageBytes;
+            // 1. 从URL拉取图片，响应体直接以流的方式转存到OSS，不在堆上缓冲整张图片
+            //    远程内容只能读一遍，上传的同时计算哈希，上传后再按哈希去重
+            Request httpRequest = new Request.Builder().url(imageUrl).get().build();
+            MessageDigest digest = SHA256.newDigest();
+            String ossImageUrl;
+            try (Response response = upstreamHttpClients.forUrl(imageUrl).newCall(httpRequest).execute()) {
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new IOException("HTTP状态码 " + response.code());
+                }
+                MediaType mediaType = body.contentType();
 
-            try (InputStream in = new URL(imageUrl).openStream()) {
-                imageBytes = in.readAllBytes();
+                // 2. 上传到OSS
+                try (InputStream in = new DigestInputStream(body.byteStream(), digest)) {
+                    ossImageUrl = aliOssUtil.upload(in, body.contentLength(),
+                            mediaType != null ? mediaType.toString() : "image/png", objectName);
+                }
             }
 
-            // 2. 上传到OSS
-            String ossImageUrl = aliOssUtil.upload(imageBytes, objectName);
+            ImageObject object = storageProperties.isContentAddressed()
+                    ? imageObjectService.adopt(SHA256.toHex(digest), objectName, ossImageUrl)
+                    : ImageObject.builder().objectName(objectName).imageUrl(ossImageUrl).build();
 
             // 3. 插入数据库记录
-            Image image = Image.builder()
-                    .imageId(imageId)
-                    .userId(userId)
-                    .imageUrl(ossImageUrl)
-                    .createTime(LocalDateTime.now())
-                    .status(0)
-                    .build();
-            imageMapper.insert(image);
-
+            insertImage(imageId, userId, object);
             return imageId;
         } catch (IOException e) {
             throw new BusinessException("无法从URL获取图片: " + e.getMessage());
         } catch (Exception e) {
             throw new BusinessException("保存图片失败: " + e.getMessage());
+        } finally {
+            sample.stop(saveTimer("url"));
+        }
+    }
+
+    @Override
+    public String uploadFile(byte[] bytes, String extension) {
+        ExceptionUtils.requireNonNull(bytes, "文件内容不能为空");
+
+        try {
+            if (!storageProperties.isContentAddressed()) {
+                return aliOssUtil.upload(bytes, UUID.randomUUID() + extension);
+            }
+            // 上传的文件没有image记录，引用不会被释放，对象常驻
+            return imageObjectService.retainOrUpload(SHA256.sha256(bytes), extension,
+                    objectName -> aliOssUtil.upload(bytes, objectName)).getImageUrl();
+        } catch (IOException e) {
+            throw new BusinessException("上传文件失败: " + e.getMessage());
         }
     }
-    
+
+    @Override
+    public void deleteImage(String imageId, Long userId) {
+        ExceptionUtils.requireNonEmpty(imageId, "图像ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        // 刚保存的图片可能还在写入缓冲中，先写出再删除
+        if (imageRecordWriter.getPending(imageId) != null) {
+            imageRecordWriter.flush();
+        }
+
+        Image image = imageMapper.selectById(imageId);
+        if (image == null || image.getStatus() != 0) {
+            throw new BusinessException("图片不存在");
+        }
+        if (!image.getUserId().equals(userId)) {
+            throw new BusinessException("无权删除此图片");
+        }
+
+        // 只有把状态从正常改为删除的一方释放引用，重复删除不会重复扣减
+        int rows = imageMapper.update(null, new LambdaUpdateWrapper<Image>()
+                .set(Image::getStatus, 1)
+                .eq(Image::getImageId, imageId)
+                .eq(Image::getStatus, 0));
+        if (rows > 0 && image.getContentHash() != null) {
+            imageObjectService.release(image.getContentHash());
+        }
+        if (rows > 0) {
+            generationCacheService.evictByImage(imageId);
+            imageCache.invalidate(imageId);
+        }
+    }
+
+    @Override
+    public void checkOwner(String imageId, Long userId) {
+        ExceptionUtils.requireNonEmpty(imageId, "图像ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        Image image = imageRecordWriter.getPending(imageId);
+        if (image == null) {
+            image = imageMapper.selectOne(new LambdaQueryWrapper<Image>()
+                    .select(Image::getUserId, Image::getStatus)
+                    .eq(Image::getImageId, imageId));
+        }
+        if (image == null || image.getStatus() == null || image.getStatus() != 0) {
+            throw new BusinessException("图片不存在");
+        }
+        if (!userId.equals(image.getUserId())) {
+            throw new BusinessException("无权访问此图片");
+        }
+    }
+
+    @Override
+    public String registerImage(String imageUrl, Long userId) {
+        ExceptionUtils.requireNonEmpty(imageUrl, "图像URL不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        // 直传的对象内容未经过服务端，不参与去重
+        String imageId = UUID.randomUUID().toString();
+        insertImage(imageId, userId, ImageObject.builder().imageUrl(imageUrl).build());
+        return imageId;
+    }
+
+    private void insertImage(String imageId, Long userId, ImageObject object) {
+        Image image = Image.builder()
+                .imageId(imageId)
+                .userId(userId)
+                .imageUrl(object.getImageUrl())
+                .contentHash(object.getContentHash())
+                .createTime(LocalDateTime.now())
+                .status(0)
+                .build();
+        // 异步批量写库，ID和URL立即可读
+        imageRecordWriter.write(image);
+        imageCache.put(imageId, image);
+
+        // 异步生成缩略图和中图，完成后刷新本地缓存；已删除（已移出缓存）的图片不再放回
+        imageDerivativeService.submit(image)
+                .thenAccept(updated -> imageCache.asMap().computeIfPresent(imageId, (id, cached) -> updated));
+    }
+
+    @Override
+    public List<String> saveBase64Images(List<String> base64Images, Long userId) {
+        return saveAll(base64Images, userId, s -> saveBase64Image(s, userId));
+    }
+
+    @Override
+    public List<String> saveImagesFromUrls(List<String> imageUrls, Long userId) {
+        return saveAll(imageUrls, userId, url -> saveImageFromUrl(url, userId));
+    }
+
+    /**
+     * 按perRequestParallelism条"通道"并行转存：第k条通道依次处理下标k, k+p, k+2p...
+     * 结果按下标回填，保证与输入顺序一致；总耗时接近最慢的一张而不是所有图片之和。
+     * 任一张失败时整体失败，已保存成功的图片删除并释放对象引用，避免留下调用方拿不到ID的图片
+     */
+    private List<String> saveAll(List<String> sources, Long userId, Function<String, String> saver) {
+        ExceptionUtils.requireNonNull(sources, "图像列表不能为空");
+        int size = sources.size();
+        if (size <= 1) {
+            return size == 0 ? new ArrayList<>() : new ArrayList<>(List.of(saver.apply(sources.get(0))));
+        }
+
+        String[] ids = new String[size];
+        int lanes = Math.min(Math.max(persistProperties.getPerRequestParallelism(), 1), size);
+        List<CompletableFuture<?>> futures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int start = lane;
+            futures.add(CompletableFuture.supplyAsync(UserContext.wrap(() -> {
+                for (int i = start; i < size; i += lanes) {
+                    ids[i] = saver.apply(sources.get(i));
+                }
+                return null;
+            }), persistExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            // allOf在所有通道结束后才完成，此时ids中非空的都已保存成功
+            for (String imageId : ids) {
+                if (imageId != null) {
+                    try {
+                        deleteImage(imageId, userId);
+                    } catch (Exception ex) {
+                        log.warn("回滚已保存的图片失败: {}", imageId, ex);
+                    }
+                }
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof BusinessException) {
+                throw (BusinessException) cause;
+            }
+            throw new BusinessException("保存图像失败: " + cause.getMessage());
+        }
+        return new ArrayList<>(Arrays.asList(ids));
+    }
+
     @Override
-    @Cacheable(value = "imageUrls", key = "#imageId", unless = "#result == null")
     public String getImageUrl(String imageId) {
+        return getImageUrl(imageId, null);
+    }
+
+    @Override
+    public String getImageUrl(String imageId, String sizeHint) {
         ExceptionUtils.requireNonEmpty(imageId, "图像ID不能为空");
         if(imageId.endsWith(".png")){
             return  aliOssUtil.getAccessUrl(imageId);
         }
-        // 直接构建并返回URL
-        String objectName = imageId + ".png";
-        return aliOssUtil.getAccessUrl(objectName);
+        // 去重后多张图片可能共用一个对象，URL以库中记录为准
+        Image image = imageCache.get(imageId, id -> {
+            Image pending = imageRecordWriter.getPending(id);
+            if (pending != null) {
+                return pending;
+            }
+            Image stored = imageMapper.selectOne(new LambdaQueryWrapper<Image>()
+                    .select(Image::getImageId, Image::getImageUrl, Image::getThumbUrl, Image::getMediumUrl)
+                    .eq(Image::getImageId, id));
+            if (stored != null && stored.getImageUrl() != null) {
+                return stored;
+            }
+            // 历史数据按ID推导对象名
+            return Image.builder().imageId(id).imageUrl(aliOssUtil.getAccessUrl(id + ".png")).build();
+        });
+        return imageDerivativeService.selectUrl(image, sizeHint);
+    }
+
+    /**
+     * 图像保存整体耗时（下载/解码 + OSS上传 + 入库），与oss.request指标对照可看出上传占比
+     */
+    private Timer saveTimer(String source) {
+        return Timer.builder("image.storage.save")
+                .description("图像保存耗时")
+                .tag("source", source)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,344 @@
+package com.wtu.service.impl;
+
+import com.aliyun.oss.model.ObjectMetadata;
+import com.wtu.dto.image.PresignUploadDTO;
+import com.wtu.dto.image.UploadSessionDTO;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.properties.ImageUploadProperties;
+import com.wtu.service.ImageStorageService;
+import com.wtu.service.ImageUploadService;
+import com.wtu.utils.AliOssUtil;
+import com.wtu.utils.RedisUtil;
+import com.wtu.vo.GalleryImageVO;
+import com.wtu.vo.PresignUploadVO;
+import com.wtu.vo.UploadSessionVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageUploadServiceImpl implements ImageUploadService {
+
+    // 上传凭证：uploadId -> {userId, objectName, contentType, size}
+    private static final String TICKET_KEY = "image:upload:ticket:";
+    // 未确认的直传对象，分数为可以清理的时间点
+    private static final String PENDING_KEY = "image:upload:pending";
+    // 分片上传会话：sessionId -> {userId, objectName, ossUploadId, contentType, size, partSize, partCount}
+    private static final String SESSION_KEY = "image:upload:session:";
+    // 已上传的分片：partNumber -> ETag
+    private static final String PARTS_KEY = "image:upload:parts:";
+    // 进行中的会话，分数为视为放弃的时间点
+    private static final String SESSIONS_KEY = "image:upload:sessions";
+    // 合并分片期间的互斥锁
+    private static final String SESSION_LOCK_KEY = "image:upload:session-lock:";
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", ".png",
+            "image/jpeg", ".jpg",
+            "image/webp", ".webp");
+
+    private final AliOssUtil aliOssUtil;
+    private final RedisUtil redisUtil;
+    private final ImageStorageService imageStorageService;
+    private final ImageUploadProperties properties;
+
+    @Override
+    public PresignUploadVO presign(PresignUploadDTO request, Long userId) {
+        ExceptionUtils.requireNonNull(request, "请求参数不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        if (!properties.getAllowedTypes().contains(request.getContentType())) {
+            throw new BusinessException("不支持的文件类型: " + request.getContentType());
+        }
+        if (request.getSize() > properties.getMaxSize()) {
+            throw new BusinessException("文件大小不能超过" + properties.getMaxSize() / 1024 / 1024 + "MB");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        String objectName = properties.getPrefix() + uploadId
+                + EXTENSIONS.getOrDefault(request.getContentType(), "");
+        long now = System.currentTimeMillis();
+        long expireAt = now + properties.getExpire();
+        String uploadUrl = aliOssUtil.generatePresignedPutUrl(objectName, request.getContentType(), properties.getExpire());
+
+        Map<String, Object> ticket = new HashMap<>();
+        ticket.put("userId", String.valueOf(userId));
+        ticket.put("objectName", objectName);
+        ticket.put("contentType", request.getContentType());
+        ticket.put("size", String.valueOf(request.getSize()));
+        redisUtil.hSetAll(TICKET_KEY + uploadId, ticket);
+        redisUtil.expire(TICKET_KEY + uploadId, properties.getExpire() + properties.getOrphanGrace(), TimeUnit.MILLISECONDS);
+        redisUtil.zAdd(PENDING_KEY, objectName, expireAt + properties.getOrphanGrace());
+
+        return PresignUploadVO.builder()
+                .uploadId(uploadId)
+                .uploadUrl(uploadUrl)
+                .contentType(request.getContentType())
+                .maxSize(request.getSize())
+                .expireAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expireAt), ZoneId.systemDefault()))
+                .build();
+    }
+
+    @Override
+    public GalleryImageVO complete(String uploadId, Long userId) {
+        ExceptionUtils.requireNonEmpty(uploadId, "上传凭证不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        String key = TICKET_KEY + uploadId;
+        Map<Object, Object> ticket = redisUtil.hGetAll(key);
+        if (ticket == null || ticket.isEmpty()) {
+            throw new BusinessException("上传凭证不存在或已过期");
+        }
+        if (!String.valueOf(userId).equals(ticket.get("userId"))) {
+            throw new BusinessException("无权确认此上传");
+        }
+
+        String objectName = (String) ticket.get("objectName");
+        String contentType = (String) ticket.get("contentType");
+        long declaredSize = Long.parseLong((String) ticket.get("size"));
+
+        // 先校验再认领：对象还没传完时凭证保留，客户端传完后可以再次确认
+        ObjectMetadata metadata = aliOssUtil.getObjectMetadata(objectName);
+        if (metadata == null) {
+            throw new BusinessException("文件尚未上传");
+        }
+        // OSS的PUT签名无法限制上传大小（只有表单POST的Policy支持content-length-range），
+        // 签名只约束了Content-Type，大小只能上传后在这里事后校验，不符合的对象和凭证直接删除
+        if (metadata.getContentLength() > declaredSize || !contentType.equals(metadata.getContentType())) {
+            aliOssUtil.delete(objectName);
+            redisUtil.delete(key);
+            redisUtil.zRemove(PENDING_KEY, objectName);
+            throw new BusinessException("上传的文件与申请时的类型或大小不符");
+        }
+
+        // 删除凭证即认领，重复确认只有一次生效
+        if (!Boolean.TRUE.equals(redisUtil.delete(key))) {
+            throw new BusinessException("上传已确认");
+        }
+
+        String imageUrl = aliOssUtil.getAccessUrl(objectName);
+        String imageId = imageStorageService.registerImage(imageUrl, userId);
+        redisUtil.zRemove(PENDING_KEY, objectName);
+
+        return GalleryImageVO.builder()
+                .imageId(imageId)
+                .imageUrl(imageUrl)
+                .thumbUrl(imageUrl)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.image.upload.clean-tick:60000}")
+    public void cleanOrphans() {
+        Set<Object> expired = redisUtil.zRangeByScore(PENDING_KEY, 0, System.currentTimeMillis(), 100);
+        if (expired == null) {
+            return;
+        }
+        for (Object member : expired) {
+            // 移除成功的实例负责删除，多实例不会重复处理
+            Long removed = redisUtil.zRemove(PENDING_KEY, member);
+            if (removed == null || removed == 0) {
+                continue;
+            }
+            try {
+                aliOssUtil.delete((String) member);
+                log.info("删除未确认的直传对象: {}", member);
+            } catch (RuntimeException e) {
+                log.warn("删除未确认的直传对象 {} 失败: {}", member, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public UploadSessionVO createSession(UploadSessionDTO request, Long userId) {
+        ExceptionUtils.requireNonNull(request, "请求参数不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+        if (!properties.getAllowedTypes().contains(request.getContentType())) {
+            throw new BusinessException("不支持的文件类型: " + request.getContentType());
+        }
+        if (request.getSize() > properties.getMaxChunkedSize()) {
+            throw new BusinessException("文件大小不能超过" + properties.getMaxChunkedSize() / 1024 / 1024 + "MB");
+        }
+
+        String sessionId = UUID.randomUUID().toString();
+        String objectName = properties.getPrefix() + sessionId
+                + EXTENSIONS.getOrDefault(request.getContentType(), "");
+        long partSize = properties.getPartSize();
+        int partCount = (int) ((request.getSize() + partSize - 1) / partSize);
+        String ossUploadId = aliOssUtil.initiateMultipartUpload(objectName, request.getContentType());
+
+        Map<String, Object> session = new HashMap<>();
+        session.put("userId", String.valueOf(userId));
+        session.put("objectName", objectName);
+        session.put("ossUploadId", ossUploadId);
+        session.put("contentType", request.getContentType());
+        session.put("size", String.valueOf(request.getSize()));
+        session.put("partSize", String.valueOf(partSize));
+        session.put("partCount", String.valueOf(partCount));
+        redisUtil.hSetAll(SESSION_KEY + sessionId, session);
+        touch(sessionId);
+
+        return UploadSessionVO.builder()
+                .sessionId(sessionId)
+                .size(request.getSize())
+                .partSize(partSize)
+                .partCount(partCount)
+                .uploadedParts(new ArrayList<>())
+                .build();
+    }
+
+    @Override
+    public UploadSessionVO getSession(String sessionId, Long userId) {
+        Map<Object, Object> session = loadSession(sessionId, userId);
+        List<Integer> uploaded = redisUtil.hGetAll(PARTS_KEY + sessionId).keySet().stream()
+                .map(k -> Integer.parseInt((String) k))
+                .sorted()
+                .collect(Collectors.toList());
+
+        return UploadSessionVO.builder()
+                .sessionId(sessionId)
+                .size(Long.parseLong((String) session.get("size")))
+                .partSize(Long.parseLong((String) session.get("partSize")))
+                .partCount(Integer.parseInt((String) session.get("partCount")))
+                .uploadedParts(uploaded)
+                .build();
+    }
+
+    @Override
+    public void uploadPart(String sessionId, int partNumber, InputStream inputStream, long contentLength, Long userId) {
+        Map<Object, Object> session = loadSession(sessionId, userId);
+        long size = Long.parseLong((String) session.get("size"));
+        long partSize = Long.parseLong((String) session.get("partSize"));
+        int partCount = Integer.parseInt((String) session.get("partCount"));
+        if (partNumber < 1 || partNumber > partCount) {
+            throw new BusinessException("分片序号应在1到" + partCount + "之间");
+        }
+        // 除最后一片外长度固定，OSS按声明长度读取，请求体不会整体缓冲
+        long expected = partNumber < partCount ? partSize : size - (long) (partCount - 1) * partSize;
+        if (contentLength != expected) {
+            throw new BusinessException("分片" + partNumber + "长度应为" + expected + "字节");
+        }
+
+        String etag = aliOssUtil.uploadPart((String) session.get("objectName"), (String) session.get("ossUploadId"),
+                partNumber, inputStream, expected);
+        redisUtil.hSet(PARTS_KEY + sessionId, String.valueOf(partNumber), etag);
+        touch(sessionId);
+    }
+
+    @Override
+    public GalleryImageVO completeSession(String sessionId, Long userId) {
+        Map<Object, Object> session = loadSession(sessionId, userId);
+        String token = redisUtil.tryLock(SESSION_LOCK_KEY + sessionId, 1, TimeUnit.MINUTES);
+        if (token == null) {
+            throw new BusinessException("上传正在合并中");
+        }
+
+        try {
+            int partCount = Integer.parseInt((String) session.get("partCount"));
+            Map<Object, Object> parts = redisUtil.hGetAll(PARTS_KEY + sessionId);
+            List<String> etags = new ArrayList<>(partCount);
+            for (int i = 1; i <= partCount; i++) {
+                Object etag = parts.get(String.valueOf(i));
+                if (etag == null) {
+                    throw new BusinessException("分片" + i + "尚未上传");
+                }
+                etags.add((String) etag);
+            }
+
+            String objectName = (String) session.get("objectName");
+            String imageUrl = aliOssUtil.completeMultipartUpload(objectName, (String) session.get("ossUploadId"), etags);
+            String imageId = imageStorageService.registerImage(imageUrl, userId);
+            removeSession(sessionId);
+
+            return GalleryImageVO.builder()
+                    .imageId(imageId)
+                    .imageUrl(imageUrl)
+                    .thumbUrl(imageUrl)
+                    .createTime(LocalDateTime.now())
+                    .build();
+        } finally {
+            redisUtil.unlock(SESSION_LOCK_KEY + sessionId, token);
+        }
+    }
+
+    @Override
+    public void abortSession(String sessionId, Long userId) {
+        Map<Object, Object> session = loadSession(sessionId, userId);
+        // 先移出会话列表再中止，与清理任务不会重复处理
+        Long removed = redisUtil.zRemove(SESSIONS_KEY, sessionId);
+        if (removed != null && removed > 0) {
+            abort(sessionId, session);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${vision.image.upload.clean-tick:60000}")
+    public void cleanAbandonedSessions() {
+        Set<Object> abandoned = redisUtil.zRangeByScore(SESSIONS_KEY, 0, System.currentTimeMillis(), 100);
+        if (abandoned == null) {
+            return;
+        }
+        for (Object member : abandoned) {
+            String sessionId = (String) member;
+            Long removed = redisUtil.zRemove(SESSIONS_KEY, sessionId);
+            if (removed == null || removed == 0) {
+                continue;
+            }
+            Map<Object, Object> session = redisUtil.hGetAll(SESSION_KEY + sessionId);
+            if (session != null && !session.isEmpty()) {
+                abort(sessionId, session);
+                log.info("中止已放弃的分片上传会话: {}", sessionId);
+            }
+        }
+    }
+
+    private Map<Object, Object> loadSession(String sessionId, Long userId) {
+        ExceptionUtils.requireNonEmpty(sessionId, "会话ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        Map<Object, Object> session = redisUtil.hGetAll(SESSION_KEY + sessionId);
+        if (session == null || session.isEmpty()) {
+            throw new BusinessException("上传会话不存在或已过期");
+        }
+        if (!String.valueOf(userId).equals(session.get("userId"))) {
+            throw new BusinessException("无权操作此上传会话");
+        }
+        return session;
+    }
+
+    /**
+     * 有新进展时推迟放弃时间，Redis中的状态比放弃时间多保留一段，保证清理任务还能读到
+     */
+    private void touch(String sessionId) {
+        long timeout = properties.getSessionTimeout();
+        redisUtil.zAdd(SESSIONS_KEY, sessionId, System.currentTimeMillis() + timeout);
+        redisUtil.expire(SESSION_KEY + sessionId, timeout * 2, TimeUnit.MILLISECONDS);
+        redisUtil.expire(PARTS_KEY + sessionId, timeout * 2, TimeUnit.MILLISECONDS);
+    }
+
+    private void abort(String sessionId, Map<Object, Object> session) {
+        try {
+            aliOssUtil.abortMultipartUpload((String) session.get("objectName"), (String) session.get("ossUploadId"));
+        } catch (RuntimeException e) {
+            log.warn("中止分片上传 {} 失败: {}", sessionId, e.getMessage());
+        }
+        redisUtil.delete(List.of(SESSION_KEY + sessionId, PARTS_KEY + sessionId));
+    }
+
+    private void removeSession(String sessionId) {
+        redisUtil.zRemove(SESSIONS_KEY, sessionId);
+        redisUtil.delete(List.of(SESSION_KEY + sessionId, PARTS_KEY + sessionId));
+    }
+}
@@ -0,0 +1,223 @@
+package com.wtu.service.impl;
+
+import com.wtu.config.ProviderClientRegistry;
+import com.wtu.entity.ImageJob;
+import com.wtu.exception.BusinessException;
+import com.wtu.exception.ExceptionUtils;
+import com.wtu.mapper.ImageJobMapper;
+import com.wtu.properties.JobEventProperties;
+import com.wtu.service.FusionJobService;
+import com.wtu.service.ImageStorageService;
+import com.wtu.service.JobEventService;
+import com.wtu.vo.ImageJobVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JobEventServiceImpl implements JobEventService {
+
+    private final ImageJobMapper imageJobMapper;
+    private final ImageStorageService imageStorageService;
+    private final FusionJobService fusionJobService;
+    private final JobEventProperties eventProperties;
+
+    // 每次批量查询的任务数上限，避免过长的IN列表
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    // 每个任务一个观察者，持有该任务上的所有连接
+    private final Map<String, Watcher> watchers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private long lastHeartbeat = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "image-job-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, eventProperties.getTick(), eventProperties.getTick(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        watchers.values().forEach(watcher -> watcher.emitters.forEach(SseEmitter::complete));
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId, Long userId, String lastEventId) {
+        ExceptionUtils.requireNonEmpty(jobId, "任务ID不能为空");
+        ExceptionUtils.requireNonNull(userId, "用户ID不能为空");
+
+        ImageJob job = imageJobMapper.selectById(jobId);
+        if (job == null) {
+            throw new BusinessException("任务不存在");
+        }
+        if (!job.getUserId().equals(userId)) {
+            throw new BusinessException("无权查看此任务");
+        }
+
+        SseEmitter emitter = new SseEmitter(eventProperties.getTimeout());
+
+        // 重连时状态没变就不重复推送，否则立即补发当前状态
+        if (!eventId(job).equals(lastEventId) && !send(emitter, job)) {
+            return emitter;
+        }
+        if (isFinished(job)) {
+            emitter.complete();
+            return emitter;
+        }
+
+        watchers.compute(jobId, (k, watcher) -> {
+            Watcher w = watcher != null ? watcher : new Watcher(eventId(job));
+            w.emitters.add(emitter);
+            return w;
+        });
+        emitter.onCompletion(() -> remove(jobId, emitter));
+        emitter.onTimeout(() -> remove(jobId, emitter));
+        emitter.onError(e -> remove(jobId, emitter));
+        return emitter;
+    }
+
+    /**
+     * 一次批量查询所有被观察的任务，状态有变化才推送
+     */
+    private void tick() {
+        try {
+            boolean heartbeat = System.currentTimeMillis() - lastHeartbeat >= eventProperties.getHeartbeat();
+            if (heartbeat) {
+                lastHeartbeat = System.currentTimeMillis();
+            }
+            if (watchers.isEmpty()) {
+                return;
+            }
+
+            List<String> jobIds = new ArrayList<>(watchers.keySet());
+            for (int from = 0; from < jobIds.size(); from += QUERY_BATCH_SIZE) {
+                List<ImageJob> jobs = imageJobMapper.selectBatchIds(
+                        jobIds.subList(from, Math.min(from + QUERY_BATCH_SIZE, jobIds.size())));
+                push(jobs, heartbeat);
+            }
+        } catch (Exception e) {
+            log.warn("推送任务进度失败: {}", e.getMessage());
+        }
+    }
+
+    private void push(List<ImageJob> jobs, boolean heartbeat) {
+        for (ImageJob job : jobs) {
+            Watcher watcher = watchers.get(job.getJobId());
+            if (watcher == null) {
+                continue;
+            }
+            // 融合任务的回调可能丢失，观察期间由这里兜底补拉；补拉在后台线程进行，结果下一轮读到
+            if (ProviderClientRegistry.PROVIDER_TTAPI.equals(job.getProvider())) {
+                fusionJobService.refreshIfStale(job);
+            }
+
+            String eventId = eventId(job);
+            if (!eventId.equals(watcher.lastEventId)) {
+                watcher.lastEventId = eventId;
+                watcher.emitters.forEach(emitter -> send(emitter, job));
+            } else if (heartbeat) {
+                watcher.emitters.forEach(this::heartbeat);
+            }
+            if (isFinished(job)) {
+                watchers.remove(job.getJobId());
+                watcher.emitters.forEach(SseEmitter::complete);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, ImageJob job) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(eventId(job))
+                    .name(eventName(job))
+                    .data(toVO(job)));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void heartbeat(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(String jobId, SseEmitter emitter) {
+        watchers.computeIfPresent(jobId, (k, watcher) -> {
+            watcher.emitters.remove(emitter);
+            return watcher.emitters.isEmpty() ? null : watcher;
+        });
+    }
+
+    /**
+     * 事件ID由状态和进度组成，与实例无关，重连到任意实例都能判断是否需要补发
+     */
+    private static String eventId(ImageJob job) {
+        return job.getStatus() + "-" + progressOf(job);
+    }
+
+    private static int progressOf(ImageJob job) {
+        return job.getProgress() == null ? 0 : job.getProgress();
+    }
+
+    private static String eventName(ImageJob job) {
+        if (job.getStatus() == ImageJob.STATUS_SUCCEEDED) {
+            return "completed";
+        }
+        return job.getStatus() == ImageJob.STATUS_FAILED ? "failed" : "progress";
+    }
+
+    private static boolean isFinished(ImageJob job) {
+        return job.getStatus() == ImageJob.STATUS_SUCCEEDED || job.getStatus() == ImageJob.STATUS_FAILED;
+    }
+
+    private ImageJobVO toVO(ImageJob job) {
+        boolean succeeded = job.getStatus() == ImageJob.STATUS_SUCCEEDED;
+        List<String> imageUrls = succeeded && job.getImageIds() != null && !job.getImageIds().isEmpty()
+                ? Arrays.stream(job.getImageIds().split(","))
+                .map(imageStorageService::getImageUrl)
+                .collect(Collectors.toList())
+                : Collections.emptyList();
+
+        return ImageJobVO.builder()
+                .jobId(job.getJobId())
+                .status(job.getStatus())
+                // 转存完成前不报告100%
+                .progress(succeeded ? 100 : Math.min(progressOf(job), 99))
+                .imageUrls(imageUrls)
+                .errorMsg(job.getErrorMsg())
+                .createTime(job.getCreateTime())
+                .updateTime(job.getUpdateTime())
+                .build();
+    }
+
+    private static final class Watcher {
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile String lastEventId;
+
+        private Watcher(String lastEventId) {
+            this.lastEventId = lastEventId;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.wtu.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 图像生成任务状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageJobVO {
+    private String jobId;            // 任务ID
+    private Integer status;          // 任务状态（0-处理中，1-成功，2-失败，3-转存中）
+    private Integer progress;        // 任务进度（0-100）
+    private List<String> imageUrls;  // 生成图片URL（成功后才有值）
+    private String errorMsg;         // 失败原因
+    private LocalDateTime createTime;
+    private LocalDateTime updateTime;
+}
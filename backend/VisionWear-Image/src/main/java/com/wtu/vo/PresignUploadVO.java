@@ -0,0 +1,23 @@
+package com.wtu.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 直传OSS凭证
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignUploadVO {
+    private String uploadId;        // 上传凭证ID，上传完成后用它确认
+    private String uploadUrl;       // PUT直传地址
+    private String contentType;     // 上传时必须携带的Content-Type
+    private Long maxSize;           // 允许上传的字节数
+    private LocalDateTime expireAt; // 直传地址过期时间
+}
@@ -0,0 +1,23 @@
+package com.wtu.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分片上传会话状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionVO {
+    private String sessionId;            // 会话ID
+    private Long size;                   // 文件总大小（字节）
+    private Long partSize;               // 分片大小（字节），最后一片可以更小
+    private Integer partCount;           // 分片总数
+    private List<Integer> uploadedParts; // 已上传的分片序号，断点续传时跳过
+}
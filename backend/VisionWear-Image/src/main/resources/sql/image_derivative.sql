@@ -0,0 +1,4 @@
+-- 衍生图：原图保存后异步生成的缩略图与中图（JPEG），未生成时为空，访问时回退到原图
+ALTER TABLE `image`
+    ADD COLUMN `thumb_url`  VARCHAR(512) DEFAULT NULL COMMENT '缩略图URL' AFTER `content_hash`,
+    ADD COLUMN `medium_url` VARCHAR(512) DEFAULT NULL COMMENT '中图URL' AFTER `thumb_url`;
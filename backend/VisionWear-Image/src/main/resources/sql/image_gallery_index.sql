@@ -0,0 +1,3 @@
+-- 图库游标分页索引：按用户、状态过滤后沿(create_time, image_id)倒序扫描，翻到任意一页都只读一页的行
+ALTER TABLE `image`
+    ADD INDEX `idx_user_status_time` (`user_id`, `status`, `create_time`, `image_id`);
@@ -0,0 +1,21 @@
+-- 图像生成任务表：异步任务提交后登记在此，由后台轮询器批量推进或由厂商回调推进
+CREATE TABLE IF NOT EXISTS `image_job`
+(
+    `job_id`         VARCHAR(64)  NOT NULL COMMENT '任务唯一ID',
+    `user_id`        BIGINT       NOT NULL COMMENT '关联用户ID',
+    `provider`       VARCHAR(32)  NOT NULL COMMENT '模型厂商',
+    `req_key`        VARCHAR(64)           DEFAULT NULL COMMENT '厂商服务标识',
+    `task_id`        VARCHAR(128) NOT NULL COMMENT '厂商侧任务ID',
+    `status`         TINYINT      NOT NULL DEFAULT 0 COMMENT '任务状态（0-处理中，1-成功，2-失败，3-转存中）',
+    `progress`       INT          NOT NULL DEFAULT 0 COMMENT '任务进度（0-100）',
+    `image_ids`      VARCHAR(1024)         DEFAULT NULL COMMENT '生成的图片ID，逗号分隔',
+    `error_msg`      VARCHAR(512)          DEFAULT NULL COMMENT '失败原因',
+    `poll_count`     INT          NOT NULL DEFAULT 0 COMMENT '已查询次数',
+    `next_poll_time` DATETIME              DEFAULT NULL COMMENT '下次查询时间',
+    `create_time`    DATETIME     NOT NULL COMMENT '创建时间',
+    `update_time`    DATETIME     NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (`job_id`),
+    KEY `idx_status_next_poll` (`status`, `next_poll_time`),
+    KEY `idx_user_id` (`user_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='图像生成任务表';
@@ -0,0 +1,17 @@
+-- 图片对象索引表：相同内容的图片只在OSS中存一份，image表按content_hash引用
+CREATE TABLE IF NOT EXISTS `image_object`
+(
+    `content_hash` CHAR(64)      NOT NULL COMMENT '内容SHA-256',
+    `object_name`  VARCHAR(128)  NOT NULL COMMENT 'OSS对象名',
+    `image_url`    VARCHAR(512)  NOT NULL COMMENT 'OSS访问URL',
+    `ref_count`    INT           NOT NULL DEFAULT 0 COMMENT '引用计数，-1表示正在回收',
+    `create_time`  DATETIME      NOT NULL COMMENT '创建时间',
+    `update_time`  DATETIME      NOT NULL COMMENT '更新时间',
+    PRIMARY KEY (`content_hash`),
+    KEY `idx_ref_count_update_time` (`ref_count`, `update_time`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='图片对象索引表';
+
+-- image表记录引用的对象，历史数据为空表示独占对象
+ALTER TABLE `image`
+    ADD COLUMN `content_hash` CHAR(64) DEFAULT NULL COMMENT '引用的对象内容SHA-256' AFTER `image_url`;
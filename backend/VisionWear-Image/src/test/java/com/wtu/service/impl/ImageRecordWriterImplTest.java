@@ -0,0 +1,78 @@
+package com.wtu.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wtu.entity.Image;
+import com.wtu.mapper.ImageMapper;
+import com.wtu.properties.ImageWriteBehindProperties;
+import com.wtu.service.ImageObjectService;
+import org.apache.ibatis.annotations.Insert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ImageRecordWriterImplTest {
+
+    @TempDir
+    Path spillDir;
+
+    private ImageRecordWriterImpl writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void derivativeUrlsSetOnBufferedRecordAreInserted() {
+        ImageMapper imageMapper = mock(ImageMapper.class);
+        ImageWriteBehindProperties properties = new ImageWriteBehindProperties();
+        // 攒批窗口足够长，保证修改发生在写库之前
+        properties.setFlushInterval(1000);
+        properties.setSpillDir(spillDir.toString());
+        writer = new ImageRecordWriterImpl(imageMapper, properties, new ObjectMapper(),
+                mock(ObjectProvider.class));
+        writer.init();
+
+        Image image = Image.builder()
+                .imageId("img-1")
+                .userId(1L)
+                .imageUrl("https://oss.example.com/img-1.png")
+                .createTime(LocalDateTime.now())
+                .status(0)
+                .build();
+        writer.write(image);
+        assertTrue(writer.updatePending("img-1", pending -> {
+            pending.setThumbUrl("https://oss.example.com/img-1_thumb.jpg");
+            pending.setMediumUrl("https://oss.example.com/img-1_medium.jpg");
+        }));
+        writer.flush();
+
+        ArgumentCaptor<List<Image>> captor = ArgumentCaptor.forClass(List.class);
+        verify(imageMapper, timeout(5000)).insertBatch(captor.capture());
+        Image inserted = captor.getValue().get(0);
+        assertEquals("https://oss.example.com/img-1_thumb.jpg", inserted.getThumbUrl());
+        assertEquals("https://oss.example.com/img-1_medium.jpg", inserted.getMediumUrl());
+        assertNull(writer.getPending("img-1"));
+        assertFalse(writer.updatePending("img-1", pending -> fail("已写库的记录不应再修改")));
+    }
+
+    @Test
+    void insertBatchWritesDerivativeColumns() throws NoSuchMethodException {
+        String sql = String.join("", ImageMapper.class.getMethod("insertBatch", List.class)
+                .getAnnotation(Insert.class).value());
+        assertTrue(sql.contains("thumb_url") && sql.contains("#{i.thumbUrl}"), sql);
+        assertTrue(sql.contains("medium_url") && sql.contains("#{i.mediumUrl}"), sql);
+    }
+}
@@ -6,6 +6,7 @@ import com.wtu.entity.User;
 import com.wtu.result.Result;
 import com.wtu.service.UserService;
 import com.wtu.utils.UserContext;
+import com.wtu.vo.GalleryPageVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -38,6 +39,14 @@ public class UserController {
         return Result.success(imageUrls);
     }
 
+    @GetMapping("/gallery")
+    @Operation(summary = "游标分页获取用户生成的图片")
+    public Result<GalleryPageVO> getGallery(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size) {
+        Long userId = UserContext.getCurrentUserId();
+        return imageClient.getGallery(userId, cursor, size);
+    }
+
 /*    @GetMapping("/getMaterial")
     @Operation(summary = "获取素材库的图片")
     public Result<List<String>> getMaterial(){